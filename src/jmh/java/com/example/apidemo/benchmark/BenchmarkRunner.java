@@ -0,0 +1,66 @@
+package com.example.apidemo.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+
+/**
+ * Запуск всех бенчмарков с сохранением результатов в JSON для сравнения между сборками.
+ * Аргументы: [файл результата] [регулярка по именам бенчмарков].
+ * К результатам кодирования в WireFormatBenchmark дописывается размер страницы (метрика encodedBytes):
+ * он считается один раз, а не накапливается по итерациям.
+ */
+public class BenchmarkRunner {
+
+    private static final String WIRE_FORMAT = WireFormatBenchmark.class.getName() + ".";
+
+    public static void main(String[] args) throws Exception {
+        String resultFile = args.length > 0 ? args[0] : "target/jmh-result.json";
+        String include = args.length > 1 ? args[1] : "com\\.example\\.apidemo\\.benchmark\\..*Benchmark";
+
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .include(include)
+                .resultFormat(ResultFormatType.JSON)
+                .result(resultFile);
+        new Runner(options.build()).run();
+        addEncodedSizes(new File(resultFile));
+    }
+
+    private static void addEncodedSizes(File resultFile) throws Exception {
+        if (!resultFile.isFile()) {
+            return;
+        }
+        ObjectMapper json = new ObjectMapper();
+        JsonNode results = json.readTree(resultFile);
+        boolean changed = false;
+        for (JsonNode result : results) {
+            String name = result.path("benchmark").asText();
+            if (!name.startsWith(WIRE_FORMAT + "write")) {
+                continue;
+            }
+            JsonNode params = result.path("params");
+            int bytes = WireFormatBenchmark.encodedSize(params.path("format").asText(),
+                    name.substring(WIRE_FORMAT.length()), params.path("pageSize").asInt());
+            // Та же форма, что у остальных метрик JMH, чтобы файл читали обычные инструменты
+            ObjectNode metric = json.createObjectNode()
+                    .put("score", bytes)
+                    .put("scoreError", 0)
+                    .put("scoreUnit", "B");
+            metric.putArray("scoreConfidence").add(bytes).add(bytes);
+            metric.putArray("rawData").addArray().add(bytes);
+            JsonNode secondary = result.get("secondaryMetrics");
+            (secondary instanceof ObjectNode metrics ? metrics : ((ObjectNode) result).putObject("secondaryMetrics"))
+                    .set("encodedBytes", metric);
+            changed = true;
+        }
+        if (changed) {
+            json.writerWithDefaultPrettyPrinter().writeValue(resultFile, results);
+        }
+    }
+}
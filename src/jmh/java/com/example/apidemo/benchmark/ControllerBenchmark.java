@@ -0,0 +1,142 @@
+package com.example.apidemo.benchmark;
+
+import com.example.apidemo.ApIdemoApplication;
+import com.example.apidemo.controller.BrandController;
+import com.example.apidemo.controller.OrderController;
+import com.example.apidemo.controller.ProductController;
+import com.example.apidemo.dto.*;
+import com.example.apidemo.repository.BrandRepo;
+import com.example.apidemo.repository.CategoryRepo;
+import com.example.apidemo.repository.RolesRepo;
+import com.example.apidemo.repository.UserRepo;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Пути create/get контроллеров против локальной БД.
+ * По умолчанию используется отдельная база swtest_bench; адрес меняется через -Dbench.datasource.url=...
+ * Схему ведут миграции Flyway, как в приложении: перед прогоном база очищается и мигрирует заново,
+ * поэтому каждый прогон мерит одну и ту же схему с индексами V2 на пустых таблицах.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class ControllerBenchmark {
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private BrandController brandController;
+    private ProductController productController;
+    private OrderController orderController;
+
+    private BrandDto brand;
+    private CategoryDto category;
+    private Long userId;
+    private Long productId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(ApIdemoApplication.class, CleanDatabase.class)
+                .web(WebApplicationType.NONE)
+                // Аргументами, а не properties(): те лишь значения по умолчанию, и application.properties
+                // подменил бы базу на рабочую swtest, которую clean затем очистил бы
+                .run("--spring.datasource.url=" + System.getProperty("bench.datasource.url",
+                                "jdbc:postgresql://localhost:5432/swtest_bench"),
+                        "--spring.datasource.username=" + System.getProperty("bench.datasource.username", "postgres"),
+                        "--spring.datasource.password=" + System.getProperty("bench.datasource.password", "0533"),
+                        "--spring.flyway.clean-disabled=false",
+                        "--spring.jpa.show-sql=false");
+
+        brandController = context.getBean(BrandController.class);
+        productController = context.getBean(ProductController.class);
+        orderController = context.getBean(OrderController.class);
+
+        brand = context.getBean(BrandRepo.class).save(new BrandDto("Bench brand"));
+        category = context.getBean(CategoryRepo.class).save(new CategoryDto("Bench category"));
+
+        // Пользователя сохраняем напрямую, чтобы не мерить хеширование пароля
+        RolesDto role = context.getBean(RolesRepo.class).save(new RolesDto("Bench role"));
+        UserDto user = Fixtures.user();
+        user.setRoleId(role.getId().intValue());
+        userId = context.getBean(UserRepo.class).save(user).getId();
+
+        productId = productController.createProduct(newProduct()).getBody().getId();
+    }
+
+    // Класс без @Configuration, чтобы сканирование пакетов приложения его не подхватило
+    static class CleanDatabase {
+
+        @Bean
+        FlywayMigrationStrategy cleanMigrate() {
+            return flyway -> {
+                flyway.clean();
+                flyway.migrate();
+            };
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public ResponseEntity<BrandDto> createBrand() {
+        return brandController.createBrand(new BrandDto("brand-" + sequence.incrementAndGet()));
+    }
+
+    @Benchmark
+    public ResponseEntity<BrandDto> getBrandById() {
+        return brandController.getBrandById(brand.getId());
+    }
+
+    @Benchmark
+    public ResponseEntity<byte[]> getAllBrands() {
+        // Новый запрос на каждый вызов: checkNotModified запоминает результат в самом запросе
+        return brandController.getAllBrands(null,
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/api/brands")));
+    }
+
+    @Benchmark
+    public ResponseEntity<ProductDto> createProduct() {
+        return productController.createProduct(newProduct());
+    }
+
+    @Benchmark
+    public ResponseEntity<ProductDto> getProductById() {
+        return productController.getProductById(productId);
+    }
+
+    @Benchmark
+    public ResponseEntity<OrderDto> createOrder() {
+        return orderController.createOrder(new OrderDto("NEW", userId));
+    }
+
+    @Benchmark
+    public ResponseEntity<List<OrderDto>> getOrdersByUser() {
+        return orderController.getOrdersByUser(userId);
+    }
+
+    private ProductDto newProduct() {
+        BrandDto brandRef = new BrandDto();
+        brandRef.setId(brand.getId());
+        CategoryDto categoryRef = new CategoryDto();
+        categoryRef.setId(category.getId());
+        return new ProductDto("product-" + sequence.incrementAndGet(), 1_000, 10, brandRef, categoryRef);
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.apidemo.benchmark;
+
+import com.example.apidemo.dto.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// Типовые DTO для бенчмарков: заполнены так же, как в реальных ответах API
+final class Fixtures {
+
+    private Fixtures() {
+    }
+
+    static BrandDto brand() {
+        BrandDto brand = new BrandDto("Acme");
+        brand.setId(7L);
+        brand.setVersion(3);
+        return brand;
+    }
+
+    static CategoryDto category() {
+        CategoryDto category = new CategoryDto("Electronics");
+        category.setId(11L);
+        category.setVersion(1);
+        return category;
+    }
+
+    static ProductDto product() {
+        ProductDto product = new ProductDto("Wireless headphones", 12_990, 42, brand(), category());
+        product.setId(1001L);
+        product.setVersion(5);
+        return product;
+    }
+
+    static List<ProductDto> products(int count) {
+        List<ProductDto> products = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            ProductDto product = product();
+            product.setId((long) i + 1);
+            product.setProductTitle("Product " + i);
+            products.add(product);
+        }
+        return products;
+    }
+
+    static UserDto user() {
+        UserDto user = new UserDto();
+        user.setFirstName("Ivan");
+        user.setSurName("Petrov");
+        user.setLastName("Sergeevich");
+        user.setPhoneNumber("+79001234567");
+        user.setClientLogin("ipetrov");
+        user.setClientPassword("secret-password");
+        user.setRoleId(2);
+        user.setRegDate(LocalDateTime.of(2024, 3, 15, 10, 30));
+        return user;
+    }
+
+    static OrderDto order() {
+        OrderDto order = new OrderDto("NEW", 501L);
+        order.setId(9001L);
+        order.setOrderDate(LocalDate.of(2024, 5, 20));
+        return order;
+    }
+
+    static List<OrderDto> orders(int count) {
+        List<OrderDto> orders = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            OrderDto order = order();
+            order.setId((long) i + 1);
+            orders.add(order);
+        }
+        return orders;
+    }
+
+    static PaymentDto payment() {
+        PaymentDto payment = new PaymentDto(12_990, "CARD", 501L, 9001L);
+        payment.setId(7001L);
+        payment.setPaymentDate(LocalDate.of(2024, 5, 21));
+        return payment;
+    }
+
+    static List<PaymentDto> payments(int count) {
+        List<PaymentDto> payments = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            PaymentDto payment = payment();
+            payment.setId((long) i + 1);
+            payment.setPrice(100 + i);
+            payments.add(payment);
+        }
+        return payments;
+    }
+
+    static ReviewDto review() {
+        ReviewDto review = new ReviewDto("Great sound, battery lasts all week", 5, 501L, 9001L);
+        review.setId(3001L);
+        review.setReviewDate(LocalDate.of(2024, 6, 1));
+        return review;
+    }
+
+    static RolesDto role() {
+        RolesDto role = new RolesDto("ADMIN");
+        role.setId(1L);
+        return role;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.apidemo.benchmark;
+
+import com.example.apidemo.metrics.OutcomeTimers;
+import com.example.apidemo.metrics.RepositoryMetricsInterceptor;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsProperties;
+import org.springframework.boot.actuate.autoconfigure.metrics.PropertiesMeterFilter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы таймеров на вызов репозитория: прямой вызов, прокси без
+ * перехватчика (как у Spring Data) и прокси с {@link RepositoryMetricsInterceptor}.
+ * Разница последних двух — цена метрик на один вызов. Реестр — Prometheus с гистограммой
+ * перцентилей для repository.invocations, как в application.properties: запись в корзины
+ * гистограммы и есть основная часть этой цены.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MetricsOverheadBenchmark {
+
+    public interface Finder {
+        List<Long> findByUserId(Long userId);
+    }
+
+    private Finder direct;
+    private Finder proxied;
+    private Finder instrumented;
+    private Long userId;
+
+    @Setup
+    public void setUp() {
+        List<Long> result = List.of(1L, 2L, 3L);
+        direct = id -> result;
+        proxied = proxy(direct, null);
+        instrumented = proxy(direct, new RepositoryMetricsInterceptor(prometheusRegistry(), "OrderRepo"));
+        userId = 42L;
+    }
+
+    @Benchmark
+    public List<Long> directCall() {
+        return direct.findByUserId(userId);
+    }
+
+    @Benchmark
+    public List<Long> proxiedCall() {
+        return proxied.findByUserId(userId);
+    }
+
+    @Benchmark
+    public List<Long> instrumentedCall() {
+        return instrumented.findByUserId(userId);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public List<Long> instrumentedCallContended() {
+        return instrumented.findByUserId(userId);
+    }
+
+    // Те же management.metrics.distribution.*, что у приложения, через тот же фильтр Spring Boot
+    private static PrometheusMeterRegistry prometheusRegistry() {
+        MetricsProperties properties = new MetricsProperties();
+        properties.getDistribution().getPercentilesHistogram().put(OutcomeTimers.REPOSITORY_METRIC, true);
+        properties.getDistribution().getMaximumExpectedValue().put(OutcomeTimers.REPOSITORY_METRIC, "10s");
+        PrometheusMeterRegistry registry = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+        registry.config().meterFilter(new PropertiesMeterFilter(properties));
+        return registry;
+    }
+
+    private static Finder proxy(Finder target, RepositoryMetricsInterceptor interceptor) {
+        ProxyFactory factory = new ProxyFactory(target);
+        factory.addInterface(Finder.class);
+        if (interceptor != null) {
+            factory.addAdvice(interceptor);
+        }
+        return (Finder) factory.getProxy();
+    }
+}
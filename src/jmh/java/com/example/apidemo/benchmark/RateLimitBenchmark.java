@@ -0,0 +1,87 @@
+package com.example.apidemo.benchmark;
+
+import com.example.apidemo.ratelimit.RateLimitFilter;
+import com.example.apidemo.ratelimit.RateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Цена ограничителя частоты на запрос: решение по ведру для одного клиента, для многих клиентов,
+ * под конкуренцией восьми потоков за одно ведро и весь фильтр с разбором пути.
+ * Лимиты заведомо не достигаются, измеряется путь пропущенного запроса.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RateLimitBenchmark {
+
+    private static final FilterChain NOOP = (request, response) -> {
+    };
+
+    private RateLimiter limiter;
+    private RateLimitFilter filter;
+    private String[] clients;
+    private MockHttpServletRequest byIdRequest;
+    private MockHttpServletRequest listRequest;
+    private MockHttpServletResponse response;
+
+    @Setup
+    public void setUp() {
+        limiter = new RateLimiter(1e9, 1_000_000, 1e9, 1_000_000, 100_000, 8, new SimpleMeterRegistry());
+        filter = new RateLimitFilter(limiter, "X-Api-Key", Set.of(),
+                List.of("/api/{resource}", "/api/{resource}/by-date", "/api/products/stream/**"));
+        clients = new String[10_000];
+        for (int i = 0; i < clients.length; i++) {
+            clients[i] = "10.0." + (i >> 8) + "." + (i & 0xFF);
+        }
+        byIdRequest = request("/api/payments/42");
+        listRequest = request("/api/payments");
+        response = new MockHttpServletResponse();
+    }
+
+    @Benchmark
+    public long singleClient() {
+        return limiter.tryAcquire("10.0.0.1", RateLimiter.Budget.STANDARD, System.nanoTime());
+    }
+
+    @Benchmark
+    public long manyClients() {
+        String client = clients[ThreadLocalRandom.current().nextInt(clients.length)];
+        return limiter.tryAcquire(client, RateLimiter.Budget.STANDARD, System.nanoTime());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public long singleClientContended() {
+        return limiter.tryAcquire("10.0.0.1", RateLimiter.Budget.STANDARD, System.nanoTime());
+    }
+
+    @Benchmark
+    public int filterById() throws Exception {
+        filter.doFilter(byIdRequest, response, NOOP);
+        return response.getStatus();
+    }
+
+    @Benchmark
+    public int filterList() throws Exception {
+        filter.doFilter(listRequest, response, NOOP);
+        return response.getStatus();
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setRemoteAddr("10.0.0.1");
+        return request;
+    }
+}
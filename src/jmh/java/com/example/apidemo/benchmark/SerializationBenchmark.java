@@ -0,0 +1,115 @@
+package com.example.apidemo.benchmark;
+
+import com.example.apidemo.dto.*;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Сериализация DTO тем же ObjectMapper, что собирает Spring Boot (с модулем java.time)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+
+    private ProductDto product;
+    private List<ProductDto> productPage;
+    private UserDto user;
+    private OrderDto order;
+    private PaymentDto payment;
+    private ReviewDto review;
+    private BrandDto brand;
+    private CategoryDto category;
+    private RolesDto role;
+
+    private byte[] productJson;
+    private byte[] productPageJson;
+    private byte[] paymentJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        product = Fixtures.product();
+        productPage = Fixtures.products(100);
+        user = Fixtures.user();
+        order = Fixtures.order();
+        payment = Fixtures.payment();
+        review = Fixtures.review();
+        brand = Fixtures.brand();
+        category = Fixtures.category();
+        role = Fixtures.role();
+
+        productJson = objectMapper.writeValueAsBytes(product);
+        productPageJson = objectMapper.writeValueAsBytes(productPage);
+        paymentJson = objectMapper.writeValueAsBytes(payment);
+    }
+
+    @Benchmark
+    public byte[] writeProduct() throws Exception {
+        return objectMapper.writeValueAsBytes(product);
+    }
+
+    @Benchmark
+    public byte[] writeProductPage() throws Exception {
+        return objectMapper.writeValueAsBytes(productPage);
+    }
+
+    @Benchmark
+    public byte[] writeUser() throws Exception {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] writeOrder() throws Exception {
+        return objectMapper.writeValueAsBytes(order);
+    }
+
+    @Benchmark
+    public byte[] writePayment() throws Exception {
+        return objectMapper.writeValueAsBytes(payment);
+    }
+
+    @Benchmark
+    public byte[] writeReview() throws Exception {
+        return objectMapper.writeValueAsBytes(review);
+    }
+
+    @Benchmark
+    public byte[] writeBrand() throws Exception {
+        return objectMapper.writeValueAsBytes(brand);
+    }
+
+    @Benchmark
+    public byte[] writeCategory() throws Exception {
+        return objectMapper.writeValueAsBytes(category);
+    }
+
+    @Benchmark
+    public byte[] writeRole() throws Exception {
+        return objectMapper.writeValueAsBytes(role);
+    }
+
+    @Benchmark
+    public ProductDto readProduct() throws Exception {
+        return objectMapper.readValue(productJson, ProductDto.class);
+    }
+
+    @Benchmark
+    public List<ProductDto> readProductPage() throws Exception {
+        return objectMapper.readValue(productPageJson, new TypeReference<List<ProductDto>>() {
+        });
+    }
+
+    @Benchmark
+    public PaymentDto readPayment() throws Exception {
+        return objectMapper.readValue(paymentJson, PaymentDto.class);
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.apidemo.benchmark;
+
+import com.example.apidemo.dto.*;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Стоимость @Valid для тел запросов: корректные DTO и DTO с нарушениями
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ValidationBenchmark {
+
+    private ValidatorFactory factory;
+    private Validator validator;
+
+    private ProductDto product;
+    private UserDto user;
+    private UserDto invalidUser;
+    private OrderDto order;
+    private PaymentDto payment;
+    private ReviewDto review;
+    private ReviewDto invalidReview;
+    private BrandDto brand;
+
+    @Setup
+    public void setUp() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+        product = Fixtures.product();
+        user = Fixtures.user();
+        order = Fixtures.order();
+        payment = Fixtures.payment();
+        review = Fixtures.review();
+        brand = Fixtures.brand();
+
+        invalidUser = Fixtures.user();
+        invalidUser.setPhoneNumber("not-a-phone");
+        invalidUser.setClientLogin("x");
+        invalidReview = Fixtures.review();
+        invalidReview.setRating(9);
+    }
+
+    @TearDown
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ProductDto>> validateProduct() {
+        return validator.validate(product);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserDto>> validateUser() {
+        return validator.validate(user);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserDto>> validateInvalidUser() {
+        return validator.validate(invalidUser);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<OrderDto>> validateOrder() {
+        return validator.validate(order);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<PaymentDto>> validatePayment() {
+        return validator.validate(payment);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ReviewDto>> validateReview() {
+        return validator.validate(review);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<ReviewDto>> validateInvalidReview() {
+        return validator.validate(invalidReview);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<BrandDto>> validateBrand() {
+        return validator.validate(brand);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.apidemo.benchmark;
+
+import com.example.apidemo.dto.OrderDto;
+import com.example.apidemo.dto.PaymentDto;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON против Smile и CBOR на страницах заказов и платежей: время кодирования и декодирования.
+ * Размер страницы не зависит от прогона, его один раз считает {@link #encodedSize} для BenchmarkRunner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    @Param({"100"})
+    public int pageSize;
+
+    private ObjectMapper mapper;
+    private List<OrderDto> orders;
+    private List<PaymentDto> payments;
+    private byte[] ordersBytes;
+    private byte[] paymentsBytes;
+
+    @Setup
+    public void setUp() throws Exception {
+        mapper = mapper(format);
+        orders = Fixtures.orders(pageSize);
+        payments = Fixtures.payments(pageSize);
+        ordersBytes = mapper.writeValueAsBytes(orders);
+        paymentsBytes = mapper.writeValueAsBytes(payments);
+    }
+
+    @Benchmark
+    public byte[] writeOrders() throws Exception {
+        return mapper.writeValueAsBytes(orders);
+    }
+
+    @Benchmark
+    public List<OrderDto> readOrders() throws Exception {
+        return mapper.readValue(ordersBytes, new TypeReference<List<OrderDto>>() {
+        });
+    }
+
+    @Benchmark
+    public byte[] writePayments() throws Exception {
+        return mapper.writeValueAsBytes(payments);
+    }
+
+    @Benchmark
+    public List<PaymentDto> readPayments() throws Exception {
+        return mapper.readValue(paymentsBytes, new TypeReference<List<PaymentDto>>() {
+        });
+    }
+
+    // Размер в байтах страницы, которую кодирует бенчмарк write<Orders|Payments>
+    static int encodedSize(String format, String benchmark, int pageSize) throws Exception {
+        Object page = switch (benchmark) {
+            case "writeOrders" -> Fixtures.orders(pageSize);
+            case "writePayments" -> Fixtures.payments(pageSize);
+            default -> throw new IllegalArgumentException("Not a write benchmark: " + benchmark);
+        };
+        return mapper(format).writeValueAsBytes(page).length;
+    }
+
+    private static ObjectMapper mapper(String format) {
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json();
+        return switch (format) {
+            case "smile" -> builder.factory(new SmileFactory()).build();
+            case "cbor" -> builder.factory(new CBORFactory()).build();
+            default -> builder.build();
+        };
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.apidemo.loadtest;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Генератор синтетических данных для нагрузочных тестов.
+ * Пишет строки через COPY FROM STDIN (в десятки раз быстрее INSERT) в схему,
+ * которую уже создало приложение. Id таблиц, на которые ссылаются другие строки, резервируются
+ * в identity-последовательности и пишутся явно, поэтому внешние ключи верны и после чужих вставок
+ * или удалений; запускать стоит, пока приложение не пишет в базу.
+ * Размеры таблиц задаются аргументами key=value:
+ * <pre>
+ * url=jdbc:postgresql://localhost:5432/swtest_load user=postgres password=0533
+ * users=1000000 brands=500 categories=200 products=100000
+ * orders=2000000 payments=2000000 reviews=1000000 seed=42 truncate=true
+ * </pre>
+ */
+public class DataGenerator {
+
+    private static final int FLUSH_BYTES = 1 << 20;
+    private static final String[] STATUSES = {"NEW", "PAID", "SHIPPED", "DELIVERED", "CANCELLED"};
+    private static final String[] METHODS = {"CARD", "CASH", "SBP", "WALLET"};
+    private static final String[] ROLES = {"USER", "MANAGER", "ADMIN"};
+    private static final String[] WORDS = {
+            "great", "sound", "battery", "fast", "delivery", "broken", "cheap", "quality", "excellent",
+            "poor", "screen", "bright", "comfortable", "heavy", "light", "fits", "perfectly", "returned",
+            "recommend", "packaging", "damaged", "works", "fine", "noisy", "quiet", "stylish", "value",
+            "money", "colour", "size", "small", "large", "warranty", "support", "charger", "cable"};
+
+    private final Map<String, String> options;
+    private final SplittableRandom random;
+    private final LocalDate today = LocalDate.now();
+    private final LocalDateTime now = LocalDateTime.now().withNano(0);
+
+    public DataGenerator(Map<String, String> options) {
+        this.options = options;
+        this.random = new SplittableRandom(Long.parseLong(options.getOrDefault("seed", "42")));
+    }
+
+    public static void main(String[] args) throws SQLException {
+        new DataGenerator(LoadTestArgs.parse(args)).run();
+    }
+
+    public void run() throws SQLException {
+        String url = options.getOrDefault("url", "jdbc:postgresql://localhost:5432/swtest_load");
+        try (Connection connection = DriverManager.getConnection(url,
+                options.getOrDefault("user", "postgres"), options.getOrDefault("password", "0533"))) {
+            connection.setAutoCommit(false);
+            CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+
+            if (Boolean.parseBoolean(options.getOrDefault("truncate", "false"))) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("TRUNCATE review, payment, orders, product, brand, category, users, roles"
+                            + " RESTART IDENTITY CASCADE");
+                }
+            }
+
+            long[] roleIds = roleIds(connection);
+
+            long users = count("users", 1_000_000);
+            long userFrom = reserveIds(connection, "users", users);
+            generate(copy, "users", "id, version, firstname, surname, lastname, phonenumber, clientlogin,"
+                    + " clientpassword, roleid, regdate", users, (i, row) -> row.append(userFrom + i)
+                    .append("\t0\tName").append(i % 5000).append("\tSurname").append(i % 20000)
+                    .append("\t\\N\t+7").append(9_000_000_000L + userFrom + i)
+                    .append("\tuser").append(userFrom + i)
+                    // Пароль в открытом виде перехешируется при первом входе
+                    .append("\tloadtest\t").append(roleIds[pickRoleIndex()])
+                    .append('\t').append(now.minusMinutes(random.nextInt(3 * 365 * 24 * 60))));
+
+            long brands = count("brands", 500);
+            long brandFrom = reserveIds(connection, "brand", brands);
+            generate(copy, "brand", "id, version, brandtitle", brands,
+                    (i, row) -> row.append(brandFrom + i).append("\t0\tBrand ").append(brandFrom + i));
+
+            long categories = count("categories", 200);
+            long categoryFrom = reserveIds(connection, "category", categories);
+            generate(copy, "category", "id, version, categorytitle", categories,
+                    (i, row) -> row.append(categoryFrom + i).append("\t0\tCategory ").append(categoryFrom + i));
+
+            long products = count("products", 100_000);
+            long productFrom = reserveIds(connection, "product", products);
+            generate(copy, "product", "id, version, producttitle, price, quantity, brandid, categoryid", products,
+                    (i, row) -> row.append(productFrom + i).append("\t0\tProduct ").append(productFrom + i)
+                            .append('\t').append(100 + random.nextInt(200_000))
+                            .append('\t').append(random.nextInt(1_000))
+                            .append('\t').append(brandFrom + random.nextLong(brands))
+                            .append('\t').append(categoryFrom + random.nextLong(categories)));
+
+            long orders = count("orders", 2_000_000);
+            long orderFrom = reserveIds(connection, "orders", orders);
+            generate(copy, "orders", "id, version, orderdate, status, userid", orders,
+                    (i, row) -> row.append(orderFrom + i).append("\t0\t").append(randomDate())
+                            .append('\t').append(STATUSES[random.nextInt(STATUSES.length)])
+                            .append('\t').append(userFrom + skewed(users)));
+
+            generate(copy, "payment", "version, price, paymentmethod, paymentdate, userid, orderid",
+                    count("payments", 2_000_000),
+                    (i, row) -> row.append("0\t").append(100 + random.nextInt(200_000))
+                            .append('\t').append(METHODS[random.nextInt(METHODS.length)])
+                            .append('\t').append(randomDate())
+                            .append('\t').append(userFrom + skewed(users))
+                            .append('\t').append(orderFrom + random.nextLong(orders)));
+
+            generate(copy, "review", "version, reviewtitle, rating, reviewdate, userid, orderid",
+                    count("reviews", 1_000_000),
+                    (i, row) -> row.append("0\t").append(reviewTitle())
+                            .append('\t').append(1 + random.nextInt(5))
+                            .append('\t').append(randomDate())
+                            .append('\t').append(userFrom + skewed(users))
+                            .append('\t').append(orderFrom + random.nextLong(orders)));
+
+            connection.commit();
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("ANALYZE");
+            }
+        }
+    }
+
+    private void generate(CopyManager copy, String table, String columns, long rows, RowWriter writer)
+            throws SQLException {
+        if (rows <= 0) {
+            return;
+        }
+        long started = System.nanoTime();
+        CopyIn in = copy.copyIn("COPY " + table + " (" + columns + ") FROM STDIN");
+        try {
+            StringBuilder buffer = new StringBuilder(FLUSH_BYTES + 4096);
+            for (long i = 0; i < rows; i++) {
+                writer.write(i, buffer);
+                buffer.append('\n');
+                if (buffer.length() >= FLUSH_BYTES) {
+                    flush(in, buffer);
+                }
+            }
+            flush(in, buffer);
+            in.endCopy();
+        } finally {
+            if (in.isActive()) {
+                in.cancelCopy();
+            }
+        }
+        double seconds = (System.nanoTime() - started) / 1e9;
+        System.out.printf("%-10s %,12d rows in %6.1f s (%,.0f rows/s)%n", table, rows, seconds, rows / seconds);
+    }
+
+    private static void flush(CopyIn in, StringBuilder buffer) throws SQLException {
+        byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        in.writeToCopy(bytes, 0, bytes.length);
+        buffer.setLength(0);
+    }
+
+    /**
+     * Резервирует {@code count} подряд идущих id в identity-последовательности таблицы и возвращает первый.
+     * MAX(id) + 1 здесь не подходит: после удалений или откатов последовательность уходит вперёд,
+     * и приложение потом выдало бы уже занятые id.
+     */
+    private static long reserveIds(Connection connection, String table, long count) throws SQLException {
+        if (count <= 0) {
+            return 0;
+        }
+        try (PreparedStatement statement = connection.prepareStatement(
+                "SELECT setval(s, nextval(s) + ? - 1) FROM pg_get_serial_sequence(?, 'id') s")) {
+            statement.setLong(1, count);
+            statement.setString(2, table);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                return rs.getLong(1) - count + 1;
+            }
+        }
+    }
+
+    // Роли уникальны по названию: недостающие создаём, id всех берём из базы
+    private static long[] roleIds(Connection connection) throws SQLException {
+        long[] ids = new long[ROLES.length];
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO roles (version, charactertitle) VALUES (0, ?) ON CONFLICT (charactertitle) DO NOTHING");
+             PreparedStatement select = connection.prepareStatement(
+                     "SELECT id FROM roles WHERE charactertitle = ?")) {
+            for (int i = 0; i < ROLES.length; i++) {
+                insert.setString(1, ROLES[i]);
+                insert.executeUpdate();
+                select.setString(1, ROLES[i]);
+                try (ResultSet rs = select.executeQuery()) {
+                    rs.next();
+                    ids[i] = rs.getLong(1);
+                }
+            }
+        }
+        return ids;
+    }
+
+    private long count(String key, long defaultValue) {
+        return Long.parseLong(options.getOrDefault(key, String.valueOf(defaultValue)));
+    }
+
+    private int pickRoleIndex() {
+        int roll = random.nextInt(100);
+        return roll < 90 ? 0 : roll < 98 ? 1 : 2;
+    }
+
+    // Часть пользователей активнее остальных: ~20% пользователей делают ~80% заказов
+    private long skewed(long bound) {
+        long hot = Math.max(1, bound / 5);
+        return random.nextInt(100) < 80 ? random.nextLong(hot) : random.nextLong(bound);
+    }
+
+    private LocalDate randomDate() {
+        return today.minusDays(random.nextInt(3 * 365));
+    }
+
+    private String reviewTitle() {
+        int words = 3 + random.nextInt(8);
+        StringBuilder title = new StringBuilder();
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                title.append(' ');
+            }
+            title.append(WORDS[random.nextInt(WORDS.length)]);
+        }
+        return title.toString();
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+        void write(long index, StringBuilder row);
+    }
+}
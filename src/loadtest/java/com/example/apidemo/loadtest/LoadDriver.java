@@ -0,0 +1,201 @@
+package com.example.apidemo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * HTTP-нагрузка по сценарию. Аргументы key=value:
+ * <pre>
+ * base=http://localhost:8080 scenario=storefront concurrency=64 warmup=10 duration=60 rps=0
+ * users=1000000 products=100000 brands=500 categories=200 orders=2000000 payments=2000000 reviews=1000000
+ * result=target/loadtest-result.json
+ * </pre>
+ * При rps &gt; 0 задержка считается от запланированного момента отправки,
+ * чтобы медленные ответы не прятали очередь (coordinated omission).
+ */
+public class LoadDriver {
+
+    private final Map<String, String> options;
+    private final Scenario scenario;
+    private final HttpClient client;
+    private final String base;
+    private final Map<String, StepStats> stats = new LinkedHashMap<>();
+    private final StepStats total = new StepStats();
+
+    public LoadDriver(Map<String, String> options) {
+        this.options = options;
+        Map<String, Long> idBounds = new HashMap<>();
+        idBounds.put("user", option("users", 1_000_000));
+        idBounds.put("product", option("products", 100_000));
+        idBounds.put("brand", option("brands", 500));
+        idBounds.put("category", option("categories", 200));
+        idBounds.put("order", option("orders", 2_000_000));
+        idBounds.put("payment", option("payments", 2_000_000));
+        idBounds.put("review", option("reviews", 1_000_000));
+        this.scenario = Scenario.load(options.getOrDefault("scenario", "storefront"), idBounds);
+        this.base = options.getOrDefault("base", "http://localhost:8080");
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        scenario.steps().forEach(step -> stats.put(step.name(), new StepStats()));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new LoadDriver(LoadTestArgs.parse(args)).run();
+    }
+
+    public void run() throws InterruptedException, IOException {
+        int concurrency = (int) option("concurrency", 64);
+        long warmupNanos = TimeUnit.SECONDS.toNanos(option("warmup", 10));
+        long durationNanos = TimeUnit.SECONDS.toNanos(option("duration", 60));
+        long rps = option("rps", 0);
+        long intervalNanos = rps > 0 ? TimeUnit.SECONDS.toNanos(1) * concurrency / rps : 0;
+
+        long startedAt = System.nanoTime();
+        long measureFrom = startedAt + warmupNanos;
+        long stopAt = measureFrom + durationNanos;
+
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        for (int w = 0; w < concurrency; w++) {
+            long seed = option("seed", 42) * 31 + w;
+            workers.execute(() -> worker(new SplittableRandom(seed), measureFrom, stopAt, intervalNanos));
+        }
+        workers.shutdown();
+        workers.awaitTermination(durationNanos + warmupNanos + TimeUnit.MINUTES.toNanos(1), TimeUnit.NANOSECONDS);
+
+        report(durationNanos / 1e9);
+    }
+
+    private void worker(SplittableRandom random, long measureFrom, long stopAt, long intervalNanos) {
+        long intended = System.nanoTime();
+        while (true) {
+            if (intervalNanos > 0) {
+                long wait = intended - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+            } else {
+                intended = System.nanoTime();
+            }
+            if (intended >= stopAt) {
+                return;
+            }
+
+            Scenario.Step step = scenario.pick(random);
+            HttpRequest request = build(step, random);
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            long latency = System.nanoTime() - intended;
+
+            if (intended >= measureFrom) {
+                stats.get(step.name()).record(latency, status);
+                total.record(latency, status);
+            }
+            intended += intervalNanos;
+        }
+    }
+
+    private HttpRequest build(Scenario.Step step, SplittableRandom random) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(base + scenario.expand(step.path(), random)))
+                .timeout(Duration.ofSeconds(30))
+                .header("Accept", "application/json");
+        String body = scenario.expand(step.body(), random);
+        if (body != null) {
+            builder.header("Content-Type", "application/json")
+                    .method(step.method(), HttpRequest.BodyPublishers.ofString(body));
+        } else {
+            builder.method(step.method(), HttpRequest.BodyPublishers.noBody());
+        }
+        return builder.build();
+    }
+
+    private void report(double seconds) throws IOException {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("durationSeconds", seconds);
+        result.put("total", total.summary(seconds));
+        Map<String, Object> steps = new LinkedHashMap<>();
+        stats.forEach((name, s) -> steps.put(name, s.summary(seconds)));
+        result.put("steps", steps);
+
+        System.out.printf("%-70s %9s %9s %7s %9s %9s %9s %9s%n",
+                "step", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        stats.forEach((name, s) -> s.print(name, seconds));
+        total.print("TOTAL", seconds);
+
+        Path file = Path.of(options.getOrDefault("result", "target/loadtest-result.json"));
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), result);
+        System.out.println("Result is saved to " + file.toAbsolutePath());
+    }
+
+    private long option(String key, long defaultValue) {
+        return Long.parseLong(options.getOrDefault(key, String.valueOf(defaultValue)));
+    }
+
+    private static final class StepStats {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final LongAdder clientErrors = new LongAdder();
+        private final LongAdder serverErrors = new LongAdder();
+        private final LongAdder ioErrors = new LongAdder();
+
+        void record(long nanos, int status) {
+            latency.record(nanos);
+            if (status < 0) {
+                ioErrors.increment();
+            } else if (status >= 500) {
+                serverErrors.increment();
+            } else if (status >= 400) {
+                clientErrors.increment();
+            }
+        }
+
+        Map<String, Object> summary(double seconds) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("requests", latency.getCount());
+            summary.put("throughput", latency.getCount() / seconds);
+            summary.put("clientErrors", clientErrors.sum());
+            summary.put("serverErrors", serverErrors.sum());
+            summary.put("ioErrors", ioErrors.sum());
+            summary.put("meanMillis", latency.getMean() / 1e6);
+            summary.put("p50Millis", latency.getPercentile(50) / 1e6);
+            summary.put("p99Millis", latency.getPercentile(99) / 1e6);
+            summary.put("p999Millis", latency.getPercentile(99.9) / 1e6);
+            summary.put("maxMillis", latency.getMax() / 1e6);
+            return summary;
+        }
+
+        void print(String name, double seconds) {
+            System.out.printf("%-70s %9d %9.1f %7d %9.2f %9.2f %9.2f %9.2f%n",
+                    name.length() > 70 ? name.substring(0, 67) + "..." : name,
+                    latency.getCount(), latency.getCount() / seconds,
+                    clientErrors.sum() + serverErrors.sum() + ioErrors.sum(),
+                    latency.getPercentile(50) / 1e6, latency.getPercentile(99) / 1e6,
+                    latency.getPercentile(99.9) / 1e6, latency.getMax() / 1e6);
+        }
+    }
+}
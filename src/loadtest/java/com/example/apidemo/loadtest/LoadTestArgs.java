@@ -0,0 +1,23 @@
+package com.example.apidemo.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Разбор аргументов вида key=value
+final class LoadTestArgs {
+
+    private LoadTestArgs() {
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq <= 0) {
+                throw new IllegalArgumentException("Expected key=value, got: " + arg);
+            }
+            options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+        return options;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.apidemo.loadtest;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Взвешенный набор запросов. Формат файла сценария — по строке на запрос:
+ * <pre>
+ * # вес МЕТОД путь [JSON-тело]
+ * 30 GET /api/products/{product}
+ * 5  POST /api/payments {"price":1{int:10000},"paymentMethod":"{method}","userId":{user},"orderId":{order}}
+ * </pre>
+ * Подстановки: {user}, {order}, {product}, {brand}, {category}, {payment}, {review} — случайный id
+ * до заданного максимума; {status}, {method}, {int:N}, {dateFrom}/{dateTo} — 30-дневное окно.
+ */
+final class Scenario {
+
+    private static final String[] STATUSES = {"NEW", "PAID", "SHIPPED", "DELIVERED", "CANCELLED"};
+    private static final String[] METHODS = {"CARD", "CASH", "SBP", "WALLET"};
+
+    private final List<Step> steps;
+    private final int[] cumulativeWeights;
+    private final Map<String, Long> idBounds;
+
+    private Scenario(List<Step> steps, Map<String, Long> idBounds) {
+        this.steps = steps;
+        this.idBounds = idBounds;
+        this.cumulativeWeights = new int[steps.size()];
+        int total = 0;
+        for (int i = 0; i < steps.size(); i++) {
+            total += steps.get(i).weight();
+            cumulativeWeights[i] = total;
+        }
+    }
+
+    static Scenario load(String nameOrPath, Map<String, Long> idBounds) {
+        Path path = Path.of(nameOrPath);
+        try (InputStream in = Files.exists(path) ? Files.newInputStream(path)
+                : Scenario.class.getResourceAsStream("/scenarios/" + nameOrPath + ".txt")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Scenario not found: " + nameOrPath);
+            }
+            return new Scenario(parse(in), idBounds);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    List<Step> steps() {
+        return steps;
+    }
+
+    Step pick(SplittableRandom random) {
+        int roll = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (roll < cumulativeWeights[i]) {
+                return steps.get(i);
+            }
+        }
+        return steps.get(steps.size() - 1);
+    }
+
+    String expand(String template, SplittableRandom random) {
+        if (template == null || template.indexOf('{') < 0) {
+            return template;
+        }
+        LocalDate from = LocalDate.now().minusDays(30 + random.nextInt(3 * 365));
+        StringBuilder out = new StringBuilder(template.length() + 16);
+        int i = 0;
+        while (i < template.length()) {
+            char c = template.charAt(i);
+            int end = c == '{' ? template.indexOf('}', i) : -1;
+            // JSON-объекты в теле тоже начинаются с '{' — подставляем только известные имена
+            String token = end > i ? template.substring(i + 1, end) : null;
+            String value = token != null ? resolve(token, random, from) : null;
+            if (value != null) {
+                out.append(value);
+                i = end + 1;
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        return out.toString();
+    }
+
+    private String resolve(String token, SplittableRandom random, LocalDate from) {
+        if (token.startsWith("int:")) {
+            return String.valueOf(random.nextInt(Integer.parseInt(token.substring(4))));
+        }
+        switch (token) {
+            case "status":
+                return STATUSES[random.nextInt(STATUSES.length)];
+            case "method":
+                return METHODS[random.nextInt(METHODS.length)];
+            case "dateFrom":
+                return from.toString();
+            case "dateTo":
+                return from.plusDays(30).toString();
+            default:
+                Long bound = idBounds.get(token);
+                return bound != null ? String.valueOf(1 + random.nextLong(bound)) : null;
+        }
+    }
+
+    private static List<Step> parse(InputStream in) throws IOException {
+        List<Step> steps = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] parts = line.split("\\s+", 4);
+            if (parts.length < 3) {
+                throw new IllegalArgumentException("Invalid scenario line: " + line);
+            }
+            String body = parts.length == 4 ? parts[3] : null;
+            steps.add(new Step(parts[1] + " " + parts[2], Integer.parseInt(parts[0]), parts[1], parts[2], body));
+        }
+        if (steps.isEmpty()) {
+            throw new IllegalArgumentException("Scenario has no steps");
+        }
+        return steps;
+    }
+
+    record Step(String name, int weight, String method, String path, String body) {
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.apidemo.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время от запуска JVM до первого успешного ответа приложения. Аргументы key=value:
+ * <pre>
+ * command="-cp extracted/app.jar com.example.apidemo.ApIdemoApplication --spring.profiles.active=faststart"
+ * url=http://localhost:8080/api/brands runs=5 timeout=120 cds=target/app.jsa
+ * result=target/startup-result.json
+ * </pre>
+ * command — всё, что идёт после java, через пробел. При cds=файл архив сначала создаётся
+ * тренировочным запуском до обновления контекста (-XX:ArchiveClassesAtExit), затем каждый
+ * замер идёт с -XX:SharedArchiveFile. CDS работает только с распакованным приложением
+ * (java -Djarmode=tools -jar app.jar extract), не с fat jar. Для AOT-сборки добавьте
+ * в command -Dspring.aot.enabled=true.
+ */
+public class StartupBenchmark {
+
+    private final Map<String, String> options;
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofMillis(200))
+            .build();
+
+    public StartupBenchmark(Map<String, String> options) {
+        this.options = options;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new StartupBenchmark(LoadTestArgs.parse(args)).run();
+    }
+
+    public void run() throws Exception {
+        String command = options.get("command");
+        if (command == null || command.isBlank()) {
+            throw new IllegalArgumentException("command=... is required");
+        }
+        List<String> appArgs = Arrays.asList(command.trim().split("\\s+"));
+        URI url = URI.create(options.getOrDefault("url", "http://localhost:8080/api/brands"));
+        int runs = Integer.parseInt(options.getOrDefault("runs", "5"));
+        long timeoutNanos = TimeUnit.SECONDS.toNanos(Long.parseLong(options.getOrDefault("timeout", "120")));
+
+        List<String> jvmArgs = new ArrayList<>();
+        String archive = options.get("cds");
+        if (archive != null) {
+            if (!new File(archive).exists()) {
+                train(archive, appArgs);
+            }
+            jvmArgs.add("-XX:SharedArchiveFile=" + archive);
+        }
+
+        List<Double> millis = new ArrayList<>();
+        for (int run = 1; run <= runs; run++) {
+            double elapsed = measure(jvmArgs, appArgs, url, timeoutNanos);
+            millis.add(elapsed);
+            System.out.printf("run %d: first successful response after %.0f ms%n", run, elapsed);
+        }
+        report(millis);
+    }
+
+    // Тренировочный запуск: приложение поднимает контекст и сразу выходит, JVM пишет архив классов
+    private void train(String archive, List<String> appArgs) throws IOException, InterruptedException {
+        List<String> jvmArgs = List.of("-XX:ArchiveClassesAtExit=" + archive, "-Dspring.context.exit=onRefresh");
+        Process process = start(jvmArgs, appArgs);
+        if (process.waitFor() != 0 || !new File(archive).exists()) {
+            throw new IllegalStateException("CDS training run failed, see " + logFile());
+        }
+        System.out.println("CDS archive is saved to " + Path.of(archive).toAbsolutePath());
+    }
+
+    private double measure(List<String> jvmArgs, List<String> appArgs, URI url, long timeoutNanos)
+            throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        Process process = start(jvmArgs, appArgs);
+        try {
+            HttpRequest request = HttpRequest.newBuilder(url).timeout(Duration.ofSeconds(5)).GET().build();
+            while (System.nanoTime() - start < timeoutNanos) {
+                if (!process.isAlive()) {
+                    throw new IllegalStateException("Application exited with code " + process.exitValue());
+                }
+                try {
+                    int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                    if (status >= 200 && status < 300) {
+                        return (System.nanoTime() - start) / 1e6;
+                    }
+                } catch (IOException e) {
+                    // Порт ещё не открыт
+                }
+                Thread.sleep(10);
+            }
+            throw new IllegalStateException("No successful response from " + url + " within the timeout");
+        } finally {
+            stop(process);
+        }
+    }
+
+    private Process start(List<String> jvmArgs, List<String> appArgs) throws IOException {
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse("java"));
+        command.addAll(jvmArgs);
+        command.addAll(appArgs);
+        File log = logFile();
+        if (log.getParentFile() != null) {
+            Files.createDirectories(log.getParentFile().toPath());
+        }
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.appendTo(log))
+                .start();
+    }
+
+    private File logFile() {
+        return new File(options.getOrDefault("log", "target/startup-app.log"));
+    }
+
+    private static void stop(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(30, TimeUnit.SECONDS)) {
+            process.destroyForcibly().waitFor();
+        }
+    }
+
+    private void report(List<Double> millis) throws IOException {
+        List<Double> sorted = new ArrayList<>(millis);
+        sorted.sort(null);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("command", options.get("command"));
+        result.put("cds", options.get("cds"));
+        result.put("runsMillis", millis);
+        result.put("minMillis", sorted.get(0));
+        result.put("medianMillis", sorted.get(sorted.size() / 2));
+        result.put("maxMillis", sorted.get(sorted.size() - 1));
+        System.out.printf("time to first successful response: min %.0f ms, median %.0f ms, max %.0f ms%n",
+                sorted.get(0), sorted.get(sorted.size() / 2), sorted.get(sorted.size() - 1));
+
+        Path file = Path.of(options.getOrDefault("result", "target/startup-result.json"));
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file.toFile(), result);
+        System.out.println("Result is saved to " + file.toAbsolutePath());
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.apidemo.cache;
+
+import com.example.apidemo.controller.OrderController;
+import com.example.apidemo.controller.PaymentController;
+import com.example.apidemo.dto.UserDto;
+import com.example.apidemo.repository.UserRepo;
+import com.example.apidemo.service.UserUniquenessFilter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.cache.internal.DefaultCacheKeysFactory;
+import org.hibernate.cache.spi.entry.CacheEntry;
+import org.hibernate.cache.spi.support.AbstractReadWriteAccess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.EntityPersister;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * Применяет изменения, сделанные другими узлами, к кэшам этого узла:
+ * кэшу второго уровня, снимкам справочников, индексу ролей, Bloom-фильтру логинов и кэшу фильтров.
+ * После переподключения LISTEN уведомления за время разрыва потеряны, поэтому catchUp
+ * сверяет версии закэшированных сущностей с БД, а кэши без версий сбрасывает целиком.
+ */
+public class CacheInvalidator {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheInvalidator.class);
+    private static final int CHUNK_SIZE = 500;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final SessionFactoryImplementor sessionFactory;
+    private final CacheManager hibernateCacheManager;
+    private final Map<String, SnapshotCache<?>> snapshots;
+    private final RoleMembershipIndex membershipIndex;
+    private final QueryResultCache queryCache;
+    private final UserUniquenessFilter uniquenessFilter;
+    private final UserRepo userRepository;
+    private final SingleFlightLoader singleFlight;
+    // Имя таблицы -> persister закэшированной сущности
+    private final Map<String, EntityPersister> cachedEntities = new HashMap<>();
+
+    public CacheInvalidator(EntityManagerFactory entityManagerFactory, CacheManager hibernateCacheManager,
+                            Map<String, SnapshotCache<?>> snapshots, RoleMembershipIndex membershipIndex,
+                            QueryResultCache queryCache, UserUniquenessFilter uniquenessFilter,
+                            UserRepo userRepository, SingleFlightLoader singleFlight) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        this.hibernateCacheManager = hibernateCacheManager;
+        this.snapshots = snapshots;
+        this.membershipIndex = membershipIndex;
+        this.queryCache = queryCache;
+        this.uniquenessFilter = uniquenessFilter;
+        this.userRepository = userRepository;
+        this.singleFlight = singleFlight;
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (persister.canReadFromCache()) {
+                cachedEntities.put(EntityChange.entityName(persister.getMappedClass()), persister);
+            }
+        });
+    }
+
+    // Не read-only: перечитывать нужно с primary, реплика может ещё не догнать
+    @Transactional
+    public void apply(Collection<EntityChange> changes) {
+        Map<String, Set<Long>> byEntity = new LinkedHashMap<>();
+        for (EntityChange change : changes) {
+            byEntity.computeIfAbsent(change.entity(), e -> new HashSet<>()).add(change.id());
+        }
+        for (Map.Entry<String, Set<Long>> entry : byEntity.entrySet()) {
+            String entity = entry.getKey();
+            Set<Long> ids = entry.getValue();
+            EntityPersister persister = cachedEntities.get(entity);
+            if (persister != null) {
+                ids.forEach(id -> sessionFactory.getCache().evictEntityData(persister.getMappedClass(), id));
+            }
+            SnapshotCache<?> snapshot = snapshots.get(entity + "Snapshot");
+            if (snapshot != null) {
+                snapshot.refresh();
+            }
+            switch (entity) {
+                case "roles" -> ids.forEach(membershipIndex::invalidate);
+                case "users" -> reloadUsers(ids);
+                case "orders" -> queryCache.invalidateQuery(OrderController.BY_STATUS);
+                case "payment" -> queryCache.invalidateQuery(PaymentController.BY_METHOD);
+                default -> {
+                }
+            }
+        }
+        // Кэш запросов Hibernate сверяется только с локальными отметками времени таблиц
+        sessionFactory.getCache().evictQueryRegions();
+        // После кэша второго уровня: иначе новая загрузка успеет прочитать старую запись
+        changes.forEach(change -> singleFlight.forget(change.entity(), change.id()));
+    }
+
+    // Без уведомлений за время разрыва: сверяем версии того, что лежит в кэше
+    @Transactional
+    public void catchUp() {
+        int evicted = 0;
+        for (Map.Entry<String, EntityPersister> entry : cachedEntities.entrySet()) {
+            evicted += catchUp(entry.getValue());
+        }
+        snapshots.values().forEach(SnapshotCache::refresh);
+        membershipIndex.invalidateAll();
+        queryCache.invalidateAll();
+        sessionFactory.getCache().evictQueryRegions();
+        log.info("Change bus catch-up evicted {} stale cache entries", evicted);
+    }
+
+    private int catchUp(EntityPersister persister) {
+        Cache<Object, Object> region = hibernateCacheManager.getCache(
+                persister.getCacheAccessStrategy().getRegion().getName());
+        if (region == null) {
+            return 0;
+        }
+        Map<Long, Object> cachedVersions = new HashMap<>();
+        for (Cache.Entry<Object, Object> cached : region) {
+            Object value = cached.getValue() instanceof AbstractReadWriteAccess.Item item ? item.getValue() : cached.getValue();
+            if (value instanceof CacheEntry cacheEntry
+                    && DefaultCacheKeysFactory.staticGetEntityId(cached.getKey()) instanceof Long id) {
+                cachedVersions.put(id, cacheEntry.getVersion());
+            }
+        }
+
+        String jpql = "SELECT e.id, e.version FROM " + persister.getEntityName() + " e WHERE e.id IN :ids";
+        List<Long> ids = new ArrayList<>(cachedVersions.keySet());
+        Map<Long, Object> actualVersions = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+            List<Object[]> rows = entityManager.createQuery(jpql, Object[].class)
+                    .setParameter("ids", ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size())))
+                    .getResultList();
+            for (Object[] row : rows) {
+                actualVersions.put((Long) row[0], row[1]);
+            }
+        }
+
+        int evicted = 0;
+        for (Map.Entry<Long, Object> cached : cachedVersions.entrySet()) {
+            // Строка удалена или изменена — версия разошлась
+            if (!actualVersions.containsKey(cached.getKey())
+                    || !Objects.equals(cached.getValue(), actualVersions.get(cached.getKey()))) {
+                sessionFactory.getCache().evictEntityData(persister.getMappedClass(), cached.getKey());
+                evicted++;
+            }
+        }
+        return evicted;
+    }
+
+    private void reloadUsers(Set<Long> ids) {
+        Set<Long> deleted = new HashSet<>(ids);
+        for (UserDto user : userRepository.findAllById(ids)) {
+            deleted.remove(user.getId());
+            membershipIndex.onUserSaved(user);
+            uniquenessFilter.record(user);
+        }
+        deleted.forEach(membershipIndex::onUserDeleted);
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.apidemo.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Держит одно LISTEN-соединение и применяет чужие изменения пачками:
+ * после первого уведомления ждёт {@code batchWindowMillis}, забирает всё накопившееся
+ * и отдаёт инвалидатору разом. Соединение открывается напрямую, мимо пула: оно занято всё время.
+ * При обрыве переподключается и запускает сверку версий, потому что пропущенные уведомления не вернуть.
+ */
+public class ChangeListener implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(ChangeListener.class);
+
+    private final DataSourceProperties dataSource;
+    private final CacheInvalidator invalidator;
+    private final Runnable onNotification;
+    private final String nodeId;
+    private final int pollMillis;
+    private final long batchWindowMillis;
+    private final long reconnectMillis;
+    private final LongAdder received = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+    private volatile boolean connected;
+    private volatile boolean running;
+    private volatile Connection connection;
+    private Thread thread;
+
+    public ChangeListener(DataSourceProperties dataSource, CacheInvalidator invalidator, Runnable onNotification,
+                          String nodeId, int pollMillis, long batchWindowMillis, long reconnectMillis,
+                          MeterRegistry registry) {
+        this.dataSource = dataSource;
+        this.invalidator = invalidator;
+        this.onNotification = onNotification;
+        this.nodeId = nodeId;
+        this.pollMillis = pollMillis;
+        this.batchWindowMillis = batchWindowMillis;
+        this.reconnectMillis = reconnectMillis;
+        FunctionCounter.builder("change.bus.received", received, LongAdder::sum).register(registry);
+        FunctionCounter.builder("change.bus.batches", batches, LongAdder::sum).register(registry);
+        FunctionCounter.builder("change.bus.reconnects", reconnects, LongAdder::sum).register(registry);
+        Gauge.builder("change.bus.connected", () -> connected ? 1 : 0).register(registry);
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        thread = new Thread(this::run, "change-bus-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        running = false;
+        closeQuietly();
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void run() {
+        boolean first = true;
+        while (running) {
+            try {
+                connect();
+                // При первом подключении кэши ещё пустые, сверять нечего
+                if (!first) {
+                    invalidator.catchUp();
+                }
+                first = false;
+                listen();
+            } catch (SQLException | RuntimeException e) {
+                if (running) {
+                    log.warn("Change bus connection lost, reconnecting in {} ms: {}", reconnectMillis, e.getMessage());
+                }
+            } finally {
+                connected = false;
+                closeQuietly();
+            }
+            if (running) {
+                reconnects.increment();
+                first = false;
+                sleep(reconnectMillis);
+            }
+        }
+    }
+
+    private void connect() throws SQLException {
+        connection = DriverManager.getConnection(dataSource.determineUrl(),
+                dataSource.determineUsername(), dataSource.determinePassword());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + ChangePublisher.CHANNEL);
+        }
+        connected = true;
+    }
+
+    private void listen() throws SQLException {
+        PGConnection pg = connection.unwrap(PGConnection.class);
+        while (running) {
+            PGNotification[] first = pg.getNotifications(pollMillis);
+            if (first == null || first.length == 0) {
+                continue;
+            }
+            List<PGNotification> notifications = new ArrayList<>(List.of(first));
+            sleep(batchWindowMillis);
+            PGNotification[] more = pg.getNotifications();
+            if (more != null) {
+                notifications.addAll(List.of(more));
+            }
+            List<EntityChange> changes = new ArrayList<>();
+            for (PGNotification notification : notifications) {
+                String payload = notification.getParameter();
+                if (!nodeId.equals(EntityChange.nodeOf(payload))) {
+                    changes.addAll(EntityChange.decode(payload));
+                }
+            }
+            // Ленте изменений важен любой коммит, в том числе с другого узла
+            onNotification.run();
+            received.add(changes.size());
+            if (!changes.isEmpty()) {
+                batches.increment();
+                invalidator.apply(changes);
+            }
+        }
+    }
+
+    private void closeQuietly() {
+        Connection current = connection;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (SQLException ignored) {
+                // Соединение и так потеряно
+            }
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
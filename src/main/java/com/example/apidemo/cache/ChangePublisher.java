@@ -0,0 +1,48 @@
+package com.example.apidemo.cache;
+
+import com.example.apidemo.changes.ChangeSink;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Публикует изменения сущностей через Postgres NOTIFY в той же транзакции, что их записала:
+ * уведомление доставляется только после коммита, откат его отменяет.
+ * Изменения транзакции уходят одним уведомлением (или несколькими, если не влезли).
+ */
+public class ChangePublisher implements ChangeSink {
+
+    public static final String CHANNEL = "entity_changes";
+
+    // По нему узел узнаёт и пропускает собственные уведомления
+    private final String nodeId = UUID.randomUUID().toString().substring(0, 8);
+    private final LongAdder published = new LongAdder();
+
+    public ChangePublisher(MeterRegistry registry) {
+        FunctionCounter.builder("change.bus.published", published, LongAdder::sum).register(registry);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public void beforeCommit(SessionImplementor session, List<EntityChange> changes) {
+        List<String> payloads = EntityChange.encode(nodeId, changes);
+        session.doWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("SELECT pg_notify(?, ?)")) {
+                for (String payload : payloads) {
+                    statement.setString(1, CHANNEL);
+                    statement.setString(2, payload);
+                    statement.execute();
+                }
+            }
+        });
+        published.add(changes.size());
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.apidemo.cache;
+
+import jakarta.persistence.Table;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Изменение одной строки: таблица, id, версия после записи и вид операции.
+ * В уведомлении кодируется как "узел таблица:id:версия:операция,...", операция — первой буквой.
+ */
+public record EntityChange(String entity, long id, long version, Operation operation) {
+
+    public enum Operation {INSERT, UPDATE, DELETE}
+
+    // Postgres ограничивает payload NOTIFY 8000 байтами
+    static final int MAX_PAYLOAD = 7900;
+
+    public static String entityName(Class<?> type) {
+        Table table = type.getAnnotation(Table.class);
+        return table != null && !table.name().isEmpty() ? table.name() : type.getSimpleName();
+    }
+
+    static List<String> encode(String nodeId, Collection<EntityChange> changes) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(nodeId).append(' ');
+        int empty = payload.length();
+        for (EntityChange change : changes) {
+            String item = change.entity() + ":" + change.id() + ":" + change.version()
+                    + ":" + change.operation().name().charAt(0);
+            if (payload.length() > empty && payload.length() + item.length() + 1 > MAX_PAYLOAD) {
+                payloads.add(payload.toString());
+                payload.setLength(empty);
+            }
+            if (payload.length() > empty) {
+                payload.append(',');
+            }
+            payload.append(item);
+        }
+        if (payload.length() > empty) {
+            payloads.add(payload.toString());
+        }
+        return payloads;
+    }
+
+    static String nodeOf(String payload) {
+        int space = payload.indexOf(' ');
+        return space < 0 ? "" : payload.substring(0, space);
+    }
+
+    static List<EntityChange> decode(String payload) {
+        List<EntityChange> changes = new ArrayList<>();
+        int space = payload.indexOf(' ');
+        for (String item : payload.substring(space + 1).split(",")) {
+            String[] parts = item.split(":");
+            if (parts.length == 4) {
+                changes.add(new EntityChange(parts[0], Long.parseLong(parts[1]), Long.parseLong(parts[2]),
+                        operation(parts[3])));
+            }
+        }
+        return changes;
+    }
+
+    private static Operation operation(String letter) {
+        for (Operation operation : Operation.values()) {
+            if (operation.name().startsWith(letter)) {
+                return operation;
+            }
+        }
+        return Operation.UPDATE;
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.apidemo.cache;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Кэш результатов фильтрующих запросов: по (запросу, аргументу) хранится список id.
+ * Сами сущности потом берутся из кэша второго уровня, так что повторный запрос до БД не доходит.
+ * Записи сбрасывает тот, кто меняет данные, точечно по затронутому значению фильтра;
+ * счётчик поколений не даёт положить в кэш результат, прочитанный до такого сброса.
+ */
+@Component
+public class QueryResultCache {
+
+    private record Key(String query, Object argument) {
+    }
+
+    private static final class Entry {
+        final long[] ids;
+        volatile long lastAccess;
+
+        Entry(long[] ids, long lastAccess) {
+            this.ids = ids;
+            this.lastAccess = lastAccess;
+        }
+    }
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ConcurrentMap<Key, Entry> entries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Key, Long> generations = new ConcurrentHashMap<>();
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicLong usedSlots = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final long maxSlots;
+
+    @Autowired
+    public QueryResultCache(@Value("${app.query-cache.max-ids:1000000}") long maxSlots, MeterRegistry registry) {
+        this.maxSlots = maxSlots;
+        FunctionCounter.builder("query.result.cache.hits", hits, LongAdder::sum).register(registry);
+        FunctionCounter.builder("query.result.cache.misses", misses, LongAdder::sum).register(registry);
+        Gauge.builder("query.result.cache.entries", entries, Map::size).register(registry);
+        Gauge.builder("query.result.cache.ids", usedSlots, AtomicLong::get).register(registry);
+    }
+
+    @Transactional(readOnly = true)
+    public <T> List<T> find(Class<T> type, String query, Object argument, Supplier<List<Long>> idLoader) {
+        long[] ids = ids(new Key(query, argument), idLoader);
+        List<Long> boxed = new ArrayList<>(ids.length);
+        for (long id : ids) {
+            boxed.add(id);
+        }
+        // multiLoad сначала смотрит в кэш второго уровня и сохраняет порядок id
+        return entityManager.unwrap(Session.class).byMultipleIds(type).multiLoad(boxed).stream()
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    public void invalidate(String query, Object argument) {
+        Key key = new Key(query, argument);
+        generations.merge(key, 1L, Long::sum);
+        Entry removed = entries.remove(key);
+        if (removed != null) {
+            usedSlots.addAndGet(-slots(removed));
+        }
+    }
+
+    // Все аргументы одного запроса: когда прежнее значение фильтра неизвестно
+    public void invalidateQuery(String query) {
+        for (Key key : entries.keySet()) {
+            if (key.query().equals(query)) {
+                invalidate(key.query(), key.argument());
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        for (Key key : entries.keySet()) {
+            invalidate(key.query(), key.argument());
+        }
+    }
+
+    private long[] ids(Key key, Supplier<List<Long>> idLoader) {
+        long tick = clock.incrementAndGet();
+        Entry cached = entries.get(key);
+        if (cached != null) {
+            cached.lastAccess = tick;
+            hits.increment();
+            return cached.ids;
+        }
+        misses.increment();
+        long generation = generations.getOrDefault(key, 0L);
+        long[] ids = idLoader.get().stream().mapToLong(Long::longValue).toArray();
+        Entry loaded = new Entry(ids, tick);
+        // Кладём только если за время чтения никто не сбросил этот ключ
+        entries.compute(key, (k, current) -> {
+            if (current != null || generations.getOrDefault(k, 0L) != generation) {
+                return current;
+            }
+            usedSlots.addAndGet(slots(loaded));
+            return loaded;
+        });
+        evictIfOverBudget();
+        return ids;
+    }
+
+    private void evictIfOverBudget() {
+        while (usedSlots.get() > maxSlots && !entries.isEmpty()) {
+            Map.Entry<Key, Entry> oldest = null;
+            for (Map.Entry<Key, Entry> candidate : entries.entrySet()) {
+                if (oldest == null || candidate.getValue().lastAccess < oldest.getValue().lastAccess) {
+                    oldest = candidate;
+                }
+            }
+            if (oldest != null && entries.remove(oldest.getKey(), oldest.getValue())) {
+                usedSlots.addAndGet(-slots(oldest.getValue()));
+            }
+        }
+    }
+
+    // Пустой результат тоже занимает место, иначе произвольные аргументы раздуют кэш
+    private static long slots(Entry entry) {
+        return entry.ids.length + 1L;
+    }
+}
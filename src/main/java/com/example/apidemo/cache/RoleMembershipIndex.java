@@ -0,0 +1,130 @@
+package com.example.apidemo.cache;
+
+import com.example.apidemo.dto.UserDto;
+import com.example.apidemo.exception.ResourceNotFoundException;
+import com.example.apidemo.repository.RolesRepo;
+import com.example.apidemo.repository.UserRepo;
+import com.example.apidemo.util.LongHashSet;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Индекс "роль -> id пользователей" в памяти.
+ * Набор для роли загружается из БД при первом обращении, затем
+ * поддерживается записями через UserController и сбрасывается RolesController.
+ */
+@Component
+public class RoleMembershipIndex {
+
+    private final UserRepo userRepository;
+    private final RolesRepo rolesRepository;
+    private final ConcurrentMap<Long, RoleMembers> roles = new ConcurrentHashMap<>();
+
+    public RoleMembershipIndex(UserRepo userRepository, RolesRepo rolesRepository) {
+        this.userRepository = userRepository;
+        this.rolesRepository = rolesRepository;
+    }
+
+    public boolean isMember(Long roleId, Long userId) {
+        return members(roleId).contains(userId);
+    }
+
+    public int count(Long roleId) {
+        return members(roleId).size();
+    }
+
+    public long[] page(Long roleId, int page, int size) {
+        return members(roleId).page(page, size);
+    }
+
+    public void onUserSaved(UserDto user) {
+        onRoleChanged(user.getId(), user.getRoleId().longValue());
+    }
+
+    public void onRoleChanged(long userId, long newRoleId) {
+        // Роль пользователя могла смениться — убираем его из остальных ролей
+        roles.forEach((roleId, members) -> {
+            if (roleId != newRoleId) {
+                members.remove(userId);
+            }
+        });
+        roles.computeIfPresent(newRoleId, (roleId, members) -> {
+            members.add(userId);
+            return members;
+        });
+    }
+
+    public void onUserDeleted(Long userId) {
+        roles.values().forEach(members -> members.remove(userId));
+    }
+
+    public void invalidate(Long roleId) {
+        roles.remove(roleId);
+    }
+
+    public void invalidateAll() {
+        roles.clear();
+    }
+
+    private RoleMembers members(Long roleId) {
+        RoleMembers cached = roles.get(roleId);
+        if (cached != null) {
+            return cached;
+        }
+        // Записи заводятся только для существующих ролей, иначе любой запрошенный id раздувал бы индекс
+        if (!rolesRepository.existsById(roleId)) {
+            throw new ResourceNotFoundException("Role not found with id: " + roleId);
+        }
+        return roles.computeIfAbsent(roleId, id -> {
+            List<Long> userIds = userRepository.findIdsByRoleId(id.intValue());
+            RoleMembers members = new RoleMembers(userIds.size());
+            userIds.forEach(members::add);
+            return members;
+        });
+    }
+
+    private static final class RoleMembers {
+        private final LongHashSet ids;
+        private long[] sorted;
+
+        RoleMembers(int expectedSize) {
+            this.ids = new LongHashSet(expectedSize);
+        }
+
+        synchronized boolean contains(long userId) {
+            return ids.contains(userId);
+        }
+
+        synchronized int size() {
+            return ids.size();
+        }
+
+        synchronized void add(long userId) {
+            if (ids.add(userId)) {
+                sorted = null;
+            }
+        }
+
+        synchronized void remove(long userId) {
+            if (ids.remove(userId)) {
+                sorted = null;
+            }
+        }
+
+        // Отсортированный снимок пересобирается только после изменений
+        synchronized long[] page(int page, int size) {
+            if (sorted == null) {
+                sorted = ids.toSortedArray();
+            }
+            long from = (long) page * size;
+            if (from >= sorted.length) {
+                return new long[0];
+            }
+            return Arrays.copyOfRange(sorted, (int) from, (int) Math.min(sorted.length, from + size));
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.apidemo.cache;
+
+import com.example.apidemo.changes.ChangeSink;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Single-flight для чтения по id: одновременные запросы одного ключа ждут одну загрузку
+ * и получают её результат, так что на горячий ключ в БД идёт не больше одного запроса за раз.
+ * Готовый результат можно ещё {@code holdMillis} раздавать тем, кто пришёл следом.
+ * Коммит записи сущности на этом узле, как и уведомление шины с другого, забывает её ключ.
+ * Результат общий для всех ждавших, поэтому вызывающий не должен его менять.
+ */
+@Component
+public class SingleFlightLoader implements ChangeSink {
+
+    private static final int PURGE_THRESHOLD = 10_000;
+
+    private record Key(String entity, long id) {
+    }
+
+    private static final class Flight {
+        final CompletableFuture<Optional<?>> result = new CompletableFuture<>();
+        volatile long expiresAt;
+
+        boolean usable(long now) {
+            return !result.isDone() || now - expiresAt < 0;
+        }
+    }
+
+    private final ConcurrentMap<Key, Flight> flights = new ConcurrentHashMap<>();
+    private final long holdNanos;
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public SingleFlightLoader(@Value("${app.single-flight.hold-ms:0}") long holdMillis, MeterRegistry registry) {
+        this.holdNanos = TimeUnit.MILLISECONDS.toNanos(holdMillis);
+        FunctionCounter.builder("single.flight.loads", loads, LongAdder::sum).register(registry);
+        FunctionCounter.builder("single.flight.coalesced", coalesced, LongAdder::sum).register(registry);
+        Gauge.builder("single.flight.keys", flights, ConcurrentMap::size).register(registry);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> Optional<T> findById(Class<T> type, Long id, Function<Long, Optional<T>> loader) {
+        Key key = new Key(EntityChange.entityName(type), id);
+        Flight mine = new Flight();
+        while (true) {
+            Flight current = flights.get(key);
+            if (current != null && current.usable(System.nanoTime())) {
+                coalesced.increment();
+                return (Optional<T>) join(current);
+            }
+            boolean leader = current == null ? flights.putIfAbsent(key, mine) == null
+                    : flights.replace(key, current, mine);
+            if (leader) {
+                return load(key, mine, id, loader);
+            }
+        }
+    }
+
+    private <T> Optional<T> load(Key key, Flight flight, Long id, Function<Long, Optional<T>> loader) {
+        loads.increment();
+        Optional<T> result;
+        try {
+            result = loader.apply(id);
+        } catch (RuntimeException | Error e) {
+            flights.remove(key, flight);
+            flight.result.completeExceptionally(e);
+            throw e;
+        }
+        if (holdNanos > 0) {
+            flight.expiresAt = System.nanoTime() + holdNanos;
+            flight.result.complete(result);
+            if (flights.size() > PURGE_THRESHOLD) {
+                purgeExpired();
+            }
+        } else {
+            flights.remove(key, flight);
+            flight.result.complete(result);
+        }
+        return result;
+    }
+
+    public void forget(String entity, long id) {
+        flights.remove(new Key(entity, id));
+    }
+
+    // Загрузка, начатая до коммита, достаётся только тем, кто уже ждёт; новые запросы читают заново
+    @Override
+    public void afterCommit(List<EntityChange> changes) {
+        for (EntityChange change : changes) {
+            forget(change.entity(), change.id());
+        }
+    }
+
+    private void purgeExpired() {
+        long now = System.nanoTime();
+        flights.values().removeIf(flight -> !flight.usable(now));
+    }
+
+    private static Optional<?> join(Flight flight) {
+        try {
+            return flight.result.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.apidemo.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Неизменяемый снимок небольшой справочной таблицы вместе с готовым JSON и gzip.
+ * GET отдаёт байты из снимка без обращения к БД и без работы Jackson;
+ * любая запись через контроллер пересобирает снимок и атомарно его подменяет.
+ */
+public class SnapshotCache<T> {
+
+    private final Supplier<List<T>> loader;
+    private final ObjectMapper objectMapper;
+    private volatile Snapshot<T> snapshot;
+
+    public SnapshotCache(Supplier<List<T>> loader, ObjectMapper objectMapper) {
+        this.loader = loader;
+        this.objectMapper = objectMapper;
+    }
+
+    public Snapshot<T> get() {
+        Snapshot<T> current = snapshot;
+        return current != null ? current : refresh();
+    }
+
+    // Перечитывает таблицу после записи; synchronized гарантирует,
+    // что последним опубликован снимок, прочитанный после последней записи
+    public synchronized Snapshot<T> refresh() {
+        List<T> items = List.copyOf(loader.get());
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(items);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize snapshot", e);
+        }
+        Snapshot<T> fresh = new Snapshot<>(items, json, gzip(json), etag(json));
+        snapshot = fresh;
+        return fresh;
+    }
+
+    public void invalidate() {
+        snapshot = null;
+    }
+
+    public ResponseEntity<byte[]> toResponse(String acceptEncoding, WebRequest request) {
+        Snapshot<T> current = get();
+        // Списки тегов и слабые W/-теги разбирает Spring; * для GET он не считает совпадением
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if ((ifNoneMatch != null && ifNoneMatch.trim().equals("*")) || request.checkNotModified(current.etag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(current.etag()).build();
+        }
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(current.etag())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (acceptsGzip(acceptEncoding)) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(current.gzip());
+        }
+        return builder.body(current.json());
+    }
+
+    // gzip;q=0 — явный отказ; без упоминания gzip решает вес *
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Double gzip = null;
+        Double any = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = quality;
+            } else if (name.equals("*")) {
+                any = quality;
+            }
+        }
+        double quality = gzip != null ? gzip : any != null ? any : 0;
+        return quality > 0;
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 32);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String etag(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data);
+        return "\"" + Long.toHexString(crc.getValue()) + "-" + data.length + "\"";
+    }
+
+    public record Snapshot<T>(List<T> items, byte[] json, byte[] gzip, String etag) {
+    }
+}
@@ -0,0 +1,17 @@
+package com.example.apidemo.changes;
+
+import com.example.apidemo.cache.EntityChange;
+import org.hibernate.engine.spi.SessionImplementor;
+
+import java.util.List;
+
+// Получатель изменений транзакции: beforeCommit — после последнего flush, но до коммита, в той же транзакции;
+// afterCommit — только после успешного коммита
+public interface ChangeSink {
+
+    default void beforeCommit(SessionImplementor session, List<EntityChange> changes) {
+    }
+
+    default void afterCommit(List<EntityChange> changes) {
+    }
+}
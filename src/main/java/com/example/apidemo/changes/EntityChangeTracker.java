@@ -0,0 +1,130 @@
+package com.example.apidemo.changes;
+
+import com.example.apidemo.cache.EntityChange;
+import com.example.apidemo.cache.EntityChange.Operation;
+import jakarta.persistence.EntityManager;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Собирает изменения сущностей за транзакцию и перед коммитом отдаёт их всем {@link ChangeSink}.
+ * Повторные изменения одной строки схлопываются в одно с последней версией;
+ * вставка, за которой последовало удаление, остаётся удалением.
+ * Откатившаяся транзакция до получателей не доходит.
+ */
+public class EntityChangeTracker implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    // Получатели зависят от репозиториев, а те — от фабрики сессий, в которой зарегистрирован трекер
+    private final ObjectProvider<ChangeSink> sinks;
+    private final Map<SharedSessionContractImplementor, Map<String, EntityChange>> pending = new ConcurrentHashMap<>();
+
+    public EntityChangeTracker(ObjectProvider<ChangeSink> sinks) {
+        this.sinks = sinks;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        record(event.getSession(), event.getPersister(), event.getId(), event.getEntity(), Operation.INSERT);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        record(event.getSession(), event.getPersister(), event.getId(), event.getEntity(), Operation.UPDATE);
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        record(event.getSession(), event.getPersister(), event.getId(), event.getEntity(), Operation.DELETE);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    // Для массовых операций JPQL, которые обходят события Hibernate
+    public void record(EntityManager entityManager, EntityChange change) {
+        record(entityManager.unwrap(SessionImplementor.class), change);
+    }
+
+    /**
+     * Для записей обычным SQL мимо Hibernate. Кроме учёта изменений делает то, что Hibernate
+     * сделал бы сам: кешированные запросы по таблице сразу помечаются устаревшими, а после
+     * завершения транзакции из L2 выбрасываются только изменённые строки, не весь регион.
+     */
+    public void recordDirectWrite(EntityManager entityManager, Class<?> type, List<EntityChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        changes.forEach(change -> record(session, change));
+
+        CacheImplementor cache = session.getFactory().getCache();
+        String[] spaces = {EntityChange.entityName(type)};
+        List<Long> ids = changes.stream().map(EntityChange::id).toList();
+        cache.getTimestampsCache().preInvalidate(spaces, session);
+        session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, s) -> {
+            cache.getTimestampsCache().invalidate(spaces, s);
+            ids.forEach(id -> cache.evictEntityData(type, id));
+        });
+    }
+
+    private void record(SessionImplementor session, EntityPersister persister, Object id, Object entity,
+                        Operation operation) {
+        if (!(id instanceof Number number)) {
+            return;
+        }
+        long version = persister.isVersioned() && persister.getVersion(entity) instanceof Number v ? v.longValue() : 0;
+        record(session, new EntityChange(EntityChange.entityName(persister.getMappedClass()), number.longValue(),
+                version, operation));
+    }
+
+    private void record(SessionImplementor session, EntityChange change) {
+        // Сессия используется одним потоком, поэтому изменения внутри неё не синхронизируем
+        Map<String, EntityChange> changes = pending.computeIfAbsent(session, s -> {
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::beforeCommit);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) this::afterCompletion);
+            return new LinkedHashMap<>();
+        });
+        String key = change.entity() + ":" + change.id();
+        EntityChange previous = changes.remove(key);
+        if (previous != null && previous.operation() == Operation.INSERT && change.operation() == Operation.UPDATE) {
+            change = new EntityChange(change.entity(), change.id(), change.version(), Operation.INSERT);
+        }
+        changes.put(key, change);
+    }
+
+    private void beforeCommit(SessionImplementor session) {
+        Map<String, EntityChange> changes = pending.get(session);
+        if (changes == null || changes.isEmpty()) {
+            return;
+        }
+        List<EntityChange> list = new ArrayList<>(changes.values());
+        sinks.orderedStream().forEach(sink -> sink.beforeCommit(session, list));
+    }
+
+    private void afterCompletion(boolean success, SharedSessionContractImplementor session) {
+        Map<String, EntityChange> changes = pending.remove(session);
+        if (success && changes != null && !changes.isEmpty()) {
+            List<EntityChange> list = new ArrayList<>(changes.values());
+            sinks.orderedStream().forEach(sink -> sink.afterCommit(list));
+        }
+    }
+}
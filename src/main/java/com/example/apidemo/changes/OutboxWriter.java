@@ -0,0 +1,62 @@
+package com.example.apidemo.changes;
+
+import com.example.apidemo.cache.EntityChange;
+import com.example.apidemo.service.ChangeFeedService;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Пишет изменения транзакции в outbox той же транзакцией.
+ * Перед вставкой берётся блокировка до конца транзакции: id строк тогда растут в порядке коммитов,
+ * и читатель с курсором не пропустит строку, которая получила меньший id, но закоммитилась позже.
+ * Ценой этого записи сериализуются только на вставку в outbox и сам коммит.
+ */
+@Component
+public class OutboxWriter implements ChangeSink {
+
+    private static final String INSERT =
+            "INSERT INTO outbox (entity, entityid, version, operation, changedat) VALUES (?, ?, ?, ?, ?)";
+
+    private final String commitLock;
+    private final ChangeFeedService feed;
+
+    public OutboxWriter(@Value("${app.changes.commit-lock:}") String commitLock, ChangeFeedService feed) {
+        this.commitLock = commitLock;
+        this.feed = feed;
+    }
+
+    @Override
+    public void beforeCommit(SessionImplementor session, List<EntityChange> changes) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        session.doWork(connection -> {
+            if (!commitLock.isBlank()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(commitLock);
+                }
+            }
+            try (PreparedStatement statement = connection.prepareStatement(INSERT)) {
+                for (EntityChange change : changes) {
+                    statement.setString(1, change.entity());
+                    statement.setLong(2, change.id());
+                    statement.setLong(3, change.version());
+                    statement.setString(4, change.operation().name());
+                    statement.setTimestamp(5, now);
+                    statement.addBatch();
+                }
+                statement.executeBatch();
+            }
+        });
+    }
+
+    @Override
+    public void afterCommit(List<EntityChange> changes) {
+        feed.signal();
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.apidemo.config;
+
+import com.example.apidemo.cache.CacheInvalidator;
+import com.example.apidemo.cache.ChangeListener;
+import com.example.apidemo.cache.ChangePublisher;
+import com.example.apidemo.cache.QueryResultCache;
+import com.example.apidemo.cache.RoleMembershipIndex;
+import com.example.apidemo.cache.SingleFlightLoader;
+import com.example.apidemo.cache.SnapshotCache;
+import com.example.apidemo.repository.UserRepo;
+import com.example.apidemo.service.ChangeFeedService;
+import com.example.apidemo.service.UserUniquenessFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import java.util.Map;
+
+// Шина изменений между узлами через Postgres LISTEN/NOTIFY, работает только на Postgres
+@Configuration
+@ConditionalOnProperty(name = "app.change-bus.enabled", havingValue = "true")
+public class ChangeBusConfig {
+
+    @Bean
+    public ChangePublisher changePublisher(MeterRegistry registry) {
+        return new ChangePublisher(registry);
+    }
+
+    @Bean
+    public CacheInvalidator cacheInvalidator(EntityManagerFactory entityManagerFactory,
+                                             CacheManager hibernateCacheManager,
+                                             Map<String, SnapshotCache<?>> snapshots,
+                                             RoleMembershipIndex membershipIndex, QueryResultCache queryCache,
+                                             UserUniquenessFilter uniquenessFilter, UserRepo userRepository,
+                                             SingleFlightLoader singleFlight) {
+        return new CacheInvalidator(entityManagerFactory, hibernateCacheManager, snapshots, membershipIndex,
+                queryCache, uniquenessFilter, userRepository, singleFlight);
+    }
+
+    @Bean
+    public ChangeListener changeListener(DataSourceProperties dataSourceProperties, CacheInvalidator invalidator,
+                                         ChangePublisher publisher, ChangeFeedService changeFeed,
+                                         @Value("${app.change-bus.poll-ms:1000}") int pollMillis,
+                                         @Value("${app.change-bus.batch-window-ms:50}") long batchWindowMillis,
+                                         @Value("${app.change-bus.reconnect-ms:2000}") long reconnectMillis,
+                                         MeterRegistry registry) {
+        return new ChangeListener(dataSourceProperties, invalidator, changeFeed::signal, publisher.nodeId(),
+                pollMillis, batchWindowMillis, reconnectMillis, registry);
+    }
+}
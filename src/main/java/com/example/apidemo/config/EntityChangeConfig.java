@@ -0,0 +1,51 @@
+package com.example.apidemo.config;
+
+import com.example.apidemo.changes.ChangeSink;
+import com.example.apidemo.changes.EntityChangeTracker;
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.jpa.boot.internal.EntityManagerFactoryBuilderImpl;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.List;
+
+// Регистрирует трекер изменений сущностей в Hibernate; получатели — все бины ChangeSink
+@Configuration
+public class EntityChangeConfig {
+
+    @Bean
+    public EntityChangeTracker entityChangeTracker(ObjectProvider<ChangeSink> sinks) {
+        return new EntityChangeTracker(sinks);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityChangeTrackerCustomizer(EntityChangeTracker tracker) {
+        Integrator integrator = new Integrator() {
+            @Override
+            public void integrate(Metadata metadata, BootstrapContext bootstrapContext,
+                                  SessionFactoryImplementor sessionFactory) {
+                EventListenerRegistry listeners = sessionFactory.getServiceRegistry()
+                        .getService(EventListenerRegistry.class);
+                listeners.appendListeners(EventType.POST_INSERT, tracker);
+                listeners.appendListeners(EventType.POST_UPDATE, tracker);
+                listeners.appendListeners(EventType.POST_DELETE, tracker);
+            }
+
+            @Override
+            public void disintegrate(SessionFactoryImplementor sessionFactory,
+                                     SessionFactoryServiceRegistry serviceRegistry) {
+            }
+        };
+        return properties -> properties.put(EntityManagerFactoryBuilderImpl.INTEGRATOR_PROVIDER,
+                (IntegratorProvider) () -> List.of(integrator));
+    }
+}
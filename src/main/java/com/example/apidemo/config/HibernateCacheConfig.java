@@ -0,0 +1,30 @@
+package com.example.apidemo.config;
+
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+
+// Регионы второго уровня из hibernate-cache.conf. Менеджер создаём сами: по имени ресурса
+// Hibernate отдаёт Caffeine URI вида jar:..., который тот не читает, если приложение собрано в jar
+@Configuration
+public class HibernateCacheConfig {
+
+    private static final String PROVIDER = "com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(
+            @Value("${app.hibernate-cache.config:classpath:hibernate-cache.conf}") URI config) {
+        return Caching.getCachingProvider(PROVIDER).getCacheManager(config, getClass().getClassLoader());
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+}
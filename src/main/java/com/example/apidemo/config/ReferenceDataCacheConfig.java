@@ -0,0 +1,31 @@
+package com.example.apidemo.config;
+
+import com.example.apidemo.cache.SnapshotCache;
+import com.example.apidemo.dto.BrandDto;
+import com.example.apidemo.dto.CategoryDto;
+import com.example.apidemo.dto.RolesDto;
+import com.example.apidemo.repository.BrandRepo;
+import com.example.apidemo.repository.CategoryRepo;
+import com.example.apidemo.repository.RolesRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ReferenceDataCacheConfig {
+
+    @Bean
+    public SnapshotCache<BrandDto> brandSnapshot(BrandRepo repository, ObjectMapper objectMapper) {
+        return new SnapshotCache<>(repository::findAll, objectMapper);
+    }
+
+    @Bean
+    public SnapshotCache<CategoryDto> categorySnapshot(CategoryRepo repository, ObjectMapper objectMapper) {
+        return new SnapshotCache<>(repository::findAll, objectMapper);
+    }
+
+    @Bean
+    public SnapshotCache<RolesDto> rolesSnapshot(RolesRepo repository, ObjectMapper objectMapper) {
+        return new SnapshotCache<>(repository::findAll, objectMapper);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.apidemo.config;
+
+import com.example.apidemo.exception.ServiceUnavailableException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+
+/**
+ * Отдельный ограниченный пул для асинхронных ответов MVC (StreamingResponseBody в NDJSON-выгрузках).
+ * Общий applicationTaskExecutor держит 8 потоков с неограниченной очередью: выгрузки копились бы
+ * в ней без предела. Здесь, когда заняты все потоки и очередь, запрос сразу получает 503.
+ */
+@Configuration
+public class StreamingExecutorConfig implements WebMvcConfigurer, DisposableBean {
+
+    // Не бин: иначе Spring Boot не создал бы свой applicationTaskExecutor для остальных задач
+    private final ThreadPoolTaskExecutor executor = new RejectingTaskExecutor();
+
+    public StreamingExecutorConfig(@Value("${app.products.stream.threads:32}") int threads,
+                                   @Value("${app.products.stream.queue-capacity:32}") int queueCapacity) {
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("mvc-stream-");
+        executor.initialize();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(executor);
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+
+    // Отказ пула превращается в 503: WebAsyncManager отдаёт исключение обычной обработке ошибок
+    private static final class RejectingTaskExecutor extends ThreadPoolTaskExecutor {
+
+        @Override
+        public void execute(Runnable task) {
+            try {
+                super.execute(task);
+            } catch (TaskRejectedException e) {
+                throw overloaded();
+            }
+        }
+
+        @Override
+        public Future<?> submit(Runnable task) {
+            try {
+                return super.submit(task);
+            } catch (TaskRejectedException e) {
+                throw overloaded();
+            }
+        }
+
+        @Override
+        public <T> Future<T> submit(Callable<T> task) {
+            try {
+                return super.submit(task);
+            } catch (TaskRejectedException e) {
+                throw overloaded();
+            }
+        }
+
+        private static ServiceUnavailableException overloaded() {
+            return new ServiceUnavailableException("Too many streaming responses in progress, retry later");
+        }
+    }
+}
\ No newline at end of file
@@ -1,8 +1,18 @@
 package com.example.apidemo.controller;
 
+import com.example.apidemo.cache.SingleFlightLoader;
+import com.example.apidemo.cache.SnapshotCache;
 import com.example.apidemo.dto.BrandDto;
+import com.example.apidemo.dto.BulkDeleteDto;
+import com.example.apidemo.dto.MultiGetDto;
 import com.example.apidemo.exception.ResourceNotFoundException;
 import com.example.apidemo.repository.BrandRepo;
+import com.example.apidemo.service.EntityDeleteService;
+import com.example.apidemo.service.FieldProjectionService;
+import com.example.apidemo.service.MergePatch;
+import com.example.apidemo.service.MergePatchService;
+import com.example.apidemo.service.MultiGetService;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,11 +22,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
+
 
 @RestController
 @RequestMapping("/api/brands")
@@ -24,10 +39,28 @@ import java.util.List;
 public class BrandController {
 
     private final BrandRepo repository;
+    private final SnapshotCache<BrandDto> snapshot;
+    private final MultiGetService multiGetService;
+    private final FieldProjectionService fieldProjectionService;
+    private final SingleFlightLoader singleFlight;
+    private final EntityDeleteService deleteService;
+    private final MergePatchService mergePatchService;
 
     @Autowired
-    public BrandController(BrandRepo repository) {
+    public BrandController(BrandRepo repository,
+                           SnapshotCache<BrandDto> snapshot,
+                           MultiGetService multiGetService,
+                           FieldProjectionService fieldProjectionService,
+                           SingleFlightLoader singleFlight,
+                           EntityDeleteService deleteService,
+                           MergePatchService mergePatchService) {
         this.repository = repository;
+        this.snapshot = snapshot;
+        this.multiGetService = multiGetService;
+        this.fieldProjectionService = fieldProjectionService;
+        this.singleFlight = singleFlight;
+        this.deleteService = deleteService;
+        this.mergePatchService = mergePatchService;
     }
 
     @Operation(summary = "Create a new brand", description = "Creates a new brand in the system")
@@ -52,6 +85,7 @@ public class BrandController {
         }
 
         BrandDto savedBrand = repository.save(brandDto);
+        snapshot.refresh();
         return ResponseEntity.ok(savedBrand);
     }
 
@@ -60,8 +94,11 @@ public class BrandController {
             content = {@Content(mediaType = "application/json",
                     schema = @Schema(implementation = BrandDto.class))})
     @GetMapping
-    public ResponseEntity<List<BrandDto>> getAllBrands() {
-        return ResponseEntity.ok(repository.findAll());
+    public ResponseEntity<byte[]> getAllBrands(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+        // Отдаём готовые байты из снимка, без БД и сериализации
+        return snapshot.toResponse(acceptEncoding, webRequest);
     }
 
     @Operation(summary = "Get brand by ID", description = "Returns a single brand by ID")
@@ -76,11 +113,57 @@ public class BrandController {
     public ResponseEntity<BrandDto> getBrandById(
             @Parameter(description = "ID of the brand to retrieve", required = true)
             @PathVariable Long id) {
-        BrandDto brand = repository.findById(id)
+        BrandDto brand = singleFlight.findById(BrandDto.class, id, repository::findById)
                 .orElseThrow(() -> new ResourceNotFoundException("Brand not found with id: " + id));
         return ResponseEntity.ok(brand);
     }
 
+    @Operation(summary = "Get brands by IDs",
+            description = "Returns brands in request order and lists the IDs that were not found")
+    @ApiResponse(responseCode = "200", description = "Found brands and missing IDs")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDto<BrandDto>> getBrandsByIds(
+            @Parameter(description = "Comma-separated IDs to retrieve", required = true)
+            @RequestParam List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(repository, BrandDto::getId, ids));
+    }
+
+    @Operation(summary = "Get brands by IDs from request body",
+            description = "Same as GET with ids, for ID lists too long for a query string")
+    @ApiResponse(responseCode = "200", description = "Found brands and missing IDs")
+    @PostMapping("/by-ids")
+    public ResponseEntity<MultiGetDto<BrandDto>> getBrandsByIdList(
+            @Parameter(description = "IDs to retrieve", required = true)
+            @RequestBody List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(repository, BrandDto::getId, ids));
+    }
+
+    @Operation(summary = "Get all brands with selected fields",
+            description = "Returns only the requested fields of every brand; only those columns are selected")
+    @ApiResponse(responseCode = "200", description = "Brands with the requested fields")
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<List<Map<String, Object>>> getAllBrandsFields(
+            @Parameter(description = "Comma-separated fields, e.g. id,brandTitle", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findAll(BrandDto.class, fields, null));
+    }
+
+    @Operation(summary = "Get brand fields by ID", description = "Returns only the requested fields of a brand")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Brand found"),
+            @ApiResponse(responseCode = "404", description = "Brand not found",
+                    content = @Content)
+    })
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getBrandFieldsById(
+            @Parameter(description = "ID of the brand to retrieve", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Comma-separated fields, e.g. id,brandTitle", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findById(BrandDto.class, fields, id)
+                .orElseThrow(() -> new ResourceNotFoundException("Brand not found with id: " + id)));
+    }
+
     @Operation(summary = "Update brand", description = "Updates existing brand information")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Brand updated successfully"),
@@ -98,11 +181,40 @@ public class BrandController {
         return repository.findById(id)
                 .map(existingBrand -> {
                     brandDto.setId(id);
-                    return ResponseEntity.ok(repository.save(brandDto));
+                    BrandDto savedBrand = repository.save(brandDto);
+                    snapshot.refresh();
+                    return ResponseEntity.ok(savedBrand);
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Brand not found with id: " + id));
     }
 
+    @Operation(summary = "Patch brand",
+            description = "Applies a JSON Merge Patch with only the changed fields in one version-checked UPDATE. "
+                    + "The version goes in the patch or in If-Match; the new version is returned as ETag")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Brand updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid patch",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Brand not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Brand was changed since the given version",
+                    content = @Content)
+    })
+    @PatchMapping(value = "/{id}", consumes = {MergePatchService.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchBrand(
+            @Parameter(description = "ID of the brand to update", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Version the patch is based on, if it is not in the patch")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "Changed brand fields", required = true)
+            @RequestBody JsonNode body) {
+        MergePatch patch = mergePatchService.read(BrandDto.class, body, ifMatch);
+        long version = mergePatchService.apply(BrandDto.class, id, patch)
+                .orElseThrow(() -> new ResourceNotFoundException("Brand not found with id: " + id));
+        snapshot.refresh();
+        return ResponseEntity.noContent().eTag(String.valueOf(version)).build();
+    }
+
     @Operation(summary = "Delete brand", description = "Deletes a brand by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Brand deleted successfully"),
@@ -113,10 +225,27 @@ public class BrandController {
     public ResponseEntity<Void> deleteBrand(
             @Parameter(description = "ID of the brand to delete", required = true)
             @PathVariable Long id) {
-        if (!repository.existsById(id)) {
+        if (!deleteService.delete(BrandDto.class, id)) {
             throw new ResourceNotFoundException("Brand not found with id: " + id);
         }
-        repository.deleteById(id);
+        snapshot.refresh();
         return ResponseEntity.noContent().build();
     }
+
+    @Operation(summary = "Delete brands by IDs",
+            description = "Deletes the listed brands in one transaction and lists the IDs that were not found")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Number of deleted brands and missing IDs"),
+            @ApiResponse(responseCode = "409",
+                    description = "Some of the brands are still referenced; none were deleted",
+                    content = @Content)
+    })
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<BulkDeleteDto> deleteBrandsByIds(
+            @Parameter(description = "Comma-separated IDs to delete", required = true)
+            @RequestParam List<Long> ids) {
+        BulkDeleteDto result = deleteService.deleteAll(BrandDto.class, ids);
+        snapshot.refresh();
+        return ResponseEntity.ok(result);
+    }
 }
\ No newline at end of file
@@ -1,8 +1,18 @@
 package com.example.apidemo.controller;
 
+import com.example.apidemo.cache.SingleFlightLoader;
+import com.example.apidemo.cache.SnapshotCache;
+import com.example.apidemo.dto.BulkDeleteDto;
 import com.example.apidemo.dto.CategoryDto;
+import com.example.apidemo.dto.MultiGetDto;
 import com.example.apidemo.exception.ResourceNotFoundException;
 import com.example.apidemo.repository.CategoryRepo;
+import com.example.apidemo.service.EntityDeleteService;
+import com.example.apidemo.service.FieldProjectionService;
+import com.example.apidemo.service.MergePatch;
+import com.example.apidemo.service.MergePatchService;
+import com.example.apidemo.service.MultiGetService;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,11 +22,16 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
+import java.util.Map;
+
 
 @RestController
 @RequestMapping("/api/categories")
@@ -24,10 +39,28 @@ import java.util.List;
 public class CategoryController {
 
     private final CategoryRepo repository;
+    private final SnapshotCache<CategoryDto> snapshot;
+    private final MultiGetService multiGetService;
+    private final FieldProjectionService fieldProjectionService;
+    private final SingleFlightLoader singleFlight;
+    private final EntityDeleteService deleteService;
+    private final MergePatchService mergePatchService;
 
     @Autowired
-    public CategoryController(CategoryRepo repository) {
+    public CategoryController(CategoryRepo repository,
+                              SnapshotCache<CategoryDto> snapshot,
+                              MultiGetService multiGetService,
+                              FieldProjectionService fieldProjectionService,
+                              SingleFlightLoader singleFlight,
+                              EntityDeleteService deleteService,
+                              MergePatchService mergePatchService) {
         this.repository = repository;
+        this.snapshot = snapshot;
+        this.multiGetService = multiGetService;
+        this.fieldProjectionService = fieldProjectionService;
+        this.singleFlight = singleFlight;
+        this.deleteService = deleteService;
+        this.mergePatchService = mergePatchService;
     }
 
     @Operation(summary = "Create a new category", description = "Creates a new product category in the system")
@@ -52,6 +85,7 @@ public class CategoryController {
         }
 
         CategoryDto savedCategory = repository.save(categoryDto);
+        snapshot.refresh();
         return ResponseEntity.ok(savedCategory);
     }
 
@@ -60,8 +94,11 @@ public class CategoryController {
             content = {@Content(mediaType = "application/json",
                     schema = @Schema(implementation = CategoryDto.class))})
     @GetMapping
-    public ResponseEntity<List<CategoryDto>> getAllCategories() {
-        return ResponseEntity.ok(repository.findAll());
+    public ResponseEntity<byte[]> getAllCategories(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+        // Отдаём готовые байты из снимка, без БД и сериализации
+        return snapshot.toResponse(acceptEncoding, webRequest);
     }
 
     @Operation(summary = "Get category by ID", description = "Returns a single category by ID")
@@ -76,11 +113,57 @@ public class CategoryController {
     public ResponseEntity<CategoryDto> getCategoryById(
             @Parameter(description = "ID of the category to retrieve", required = true)
             @PathVariable Long id) {
-        CategoryDto category = repository.findById(id)
+        CategoryDto category = singleFlight.findById(CategoryDto.class, id, repository::findById)
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
         return ResponseEntity.ok(category);
     }
 
+    @Operation(summary = "Get categories by IDs",
+            description = "Returns categories in request order and lists the IDs that were not found")
+    @ApiResponse(responseCode = "200", description = "Found categories and missing IDs")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDto<CategoryDto>> getCategoriesByIds(
+            @Parameter(description = "Comma-separated IDs to retrieve", required = true)
+            @RequestParam List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(repository, CategoryDto::getId, ids));
+    }
+
+    @Operation(summary = "Get categories by IDs from request body",
+            description = "Same as GET with ids, for ID lists too long for a query string")
+    @ApiResponse(responseCode = "200", description = "Found categories and missing IDs")
+    @PostMapping("/by-ids")
+    public ResponseEntity<MultiGetDto<CategoryDto>> getCategoriesByIdList(
+            @Parameter(description = "IDs to retrieve", required = true)
+            @RequestBody List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(repository, CategoryDto::getId, ids));
+    }
+
+    @Operation(summary = "Get all categories with selected fields",
+            description = "Returns only the requested fields of every category; only those columns are selected")
+    @ApiResponse(responseCode = "200", description = "Categories with the requested fields")
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<List<Map<String, Object>>> getAllCategoriesFields(
+            @Parameter(description = "Comma-separated fields, e.g. id,categoryTitle", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findAll(CategoryDto.class, fields, null));
+    }
+
+    @Operation(summary = "Get category fields by ID", description = "Returns only the requested fields of a category")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Category found"),
+            @ApiResponse(responseCode = "404", description = "Category not found",
+                    content = @Content)
+    })
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getCategoryFieldsById(
+            @Parameter(description = "ID of the category to retrieve", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Comma-separated fields, e.g. id,categoryTitle", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findById(CategoryDto.class, fields, id)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id)));
+    }
+
     @Operation(summary = "Update category", description = "Updates existing category information")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Category updated successfully"),
@@ -98,11 +181,40 @@ public class CategoryController {
         return repository.findById(id)
                 .map(existingCategory -> {
                     categoryDto.setId(id);
-                    return ResponseEntity.ok(repository.save(categoryDto));
+                    CategoryDto savedCategory = repository.save(categoryDto);
+                    snapshot.refresh();
+                    return ResponseEntity.ok(savedCategory);
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
     }
 
+    @Operation(summary = "Patch category",
+            description = "Applies a JSON Merge Patch with only the changed fields in one version-checked UPDATE. "
+                    + "The version goes in the patch or in If-Match; the new version is returned as ETag")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Category updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid patch",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Category not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Category was changed since the given version",
+                    content = @Content)
+    })
+    @PatchMapping(value = "/{id}", consumes = {MergePatchService.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchCategory(
+            @Parameter(description = "ID of the category to update", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Version the patch is based on, if it is not in the patch")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "Changed category fields", required = true)
+            @RequestBody JsonNode body) {
+        MergePatch patch = mergePatchService.read(CategoryDto.class, body, ifMatch);
+        long version = mergePatchService.apply(CategoryDto.class, id, patch)
+                .orElseThrow(() -> new ResourceNotFoundException("Category not found with id: " + id));
+        snapshot.refresh();
+        return ResponseEntity.noContent().eTag(String.valueOf(version)).build();
+    }
+
     @Operation(summary = "Delete category", description = "Deletes a category by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Category deleted successfully"),
@@ -113,10 +225,27 @@ public class CategoryController {
     public ResponseEntity<Void> deleteCategory(
             @Parameter(description = "ID of the category to delete", required = true)
             @PathVariable Long id) {
-        if (!repository.existsById(id)) {
+        if (!deleteService.delete(CategoryDto.class, id)) {
             throw new ResourceNotFoundException("Category not found with id: " + id);
         }
-        repository.deleteById(id);
+        snapshot.refresh();
         return ResponseEntity.noContent().build();
     }
+
+    @Operation(summary = "Delete categories by IDs",
+            description = "Deletes the listed categories in one transaction and lists the IDs that were not found")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Number of deleted categories and missing IDs"),
+            @ApiResponse(responseCode = "409",
+                    description = "Some of the categories are still referenced; none were deleted",
+                    content = @Content)
+    })
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<BulkDeleteDto> deleteCategoriesByIds(
+            @Parameter(description = "Comma-separated IDs to delete", required = true)
+            @RequestParam List<Long> ids) {
+        BulkDeleteDto result = deleteService.deleteAll(CategoryDto.class, ids);
+        snapshot.refresh();
+        return ResponseEntity.ok(result);
+    }
 }
\ No newline at end of file
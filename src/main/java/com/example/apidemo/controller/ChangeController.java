@@ -0,0 +1,69 @@
+package com.example.apidemo.controller;
+
+import com.example.apidemo.dto.ChangeFeedDto;
+import com.example.apidemo.exception.BadRequestException;
+import com.example.apidemo.service.ChangeFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+/**
+ * Лента изменений для внешних потребителей вместо перечитывания списков целиком.
+ * Потребитель хранит {@code next} из ответа и передаёт его как {@code after} в следующий раз.
+ */
+@RestController
+@RequestMapping("/api/changes")
+@Tag(name = "Change Feed", description = "Entity changes in commit order for incremental sync")
+public class ChangeController {
+
+    private final ChangeFeedService changeFeed;
+    private final int maxLimit;
+    private final long maxWaitSeconds;
+
+    @Autowired
+    public ChangeController(ChangeFeedService changeFeed,
+                            @Value("${app.changes.max-limit:1000}") int maxLimit,
+                            @Value("${app.changes.max-wait-seconds:30}") long maxWaitSeconds) {
+        this.changeFeed = changeFeed;
+        this.maxLimit = maxLimit;
+        this.maxWaitSeconds = maxWaitSeconds;
+    }
+
+    @Operation(summary = "Get changes after a cursor",
+            description = "Returns changes with ID greater than 'after' in commit order. With wait > 0 and "
+                    + "no changes yet, the request is held until a change is committed or the wait expires")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Changes and the cursor for the next request",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ChangeFeedDto.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid cursor, limit or wait",
+                    content = @Content)
+    })
+    @GetMapping
+    public DeferredResult<ChangeFeedDto> getChanges(
+            @Parameter(description = "ID of the last change already received, 0 to start from the beginning")
+            @RequestParam(defaultValue = "0") long after,
+            @Parameter(description = "Maximum number of changes to return")
+            @RequestParam(defaultValue = "100") int limit,
+            @Parameter(description = "Seconds to wait for new changes if there are none")
+            @RequestParam(defaultValue = "0") long wait) {
+        if (after < 0) {
+            throw new BadRequestException("Cursor must not be negative");
+        }
+        if (limit < 1 || limit > maxLimit) {
+            throw new BadRequestException("Limit must be between 1 and " + maxLimit);
+        }
+        if (wait < 0 || wait > maxWaitSeconds) {
+            throw new BadRequestException("Wait must be between 0 and " + maxWaitSeconds + " seconds");
+        }
+        return changeFeed.poll(after, limit, wait * 1000);
+    }
+}
@@ -1,8 +1,16 @@
 package com.example.apidemo.controller;
 
+import com.example.apidemo.cache.QueryResultCache;
+import com.example.apidemo.cache.SingleFlightLoader;
 import com.example.apidemo.dto.*;
 import com.example.apidemo.exception.ResourceNotFoundException;
 import com.example.apidemo.repository.*;
+import com.example.apidemo.service.EntityDeleteService;
+import com.example.apidemo.service.FieldProjectionService;
+import com.example.apidemo.service.MergePatch;
+import com.example.apidemo.service.MergePatchService;
+import com.example.apidemo.service.MultiGetService;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,24 +20,48 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/orders")
 @Tag(name = "Order Management", description = "Endpoints for managing orders")
 public class OrderController {
 
+    public static final String BY_STATUS = "OrderRepo.findIdsByStatus";
+
     private final OrderRepo orderRepository;
     private final UserRepo userRepository;
+    private final QueryResultCache queryCache;
+    private final MultiGetService multiGetService;
+    private final FieldProjectionService fieldProjectionService;
+    private final SingleFlightLoader singleFlight;
+    private final EntityDeleteService deleteService;
+    private final MergePatchService mergePatchService;
 
     @Autowired
-    public OrderController(OrderRepo orderRepository, UserRepo userRepository) {
+    public OrderController(OrderRepo orderRepository,
+                           UserRepo userRepository,
+                           QueryResultCache queryCache,
+                           MultiGetService multiGetService,
+                           FieldProjectionService fieldProjectionService,
+                           SingleFlightLoader singleFlight,
+                           EntityDeleteService deleteService,
+                           MergePatchService mergePatchService) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
+        this.queryCache = queryCache;
+        this.multiGetService = multiGetService;
+        this.fieldProjectionService = fieldProjectionService;
+        this.singleFlight = singleFlight;
+        this.deleteService = deleteService;
+        this.mergePatchService = mergePatchService;
     }
 
     @Operation(summary = "Create a new order", description = "Creates a new order in the system")
@@ -56,6 +88,7 @@ public class OrderController {
         }
 
         OrderDto savedOrder = orderRepository.save(orderDto);
+        queryCache.invalidate(BY_STATUS, savedOrder.getStatus());
         return ResponseEntity.ok(savedOrder);
     }
 
@@ -80,11 +113,57 @@ public class OrderController {
     public ResponseEntity<OrderDto> getOrderById(
             @Parameter(description = "ID of the order to retrieve", required = true)
             @PathVariable Long id) {
-        OrderDto order = orderRepository.findById(id)
+        OrderDto order = singleFlight.findById(OrderDto.class, id, orderRepository::findById)
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
         return ResponseEntity.ok(order);
     }
 
+    @Operation(summary = "Get orders by IDs",
+            description = "Returns orders in request order and lists the IDs that were not found")
+    @ApiResponse(responseCode = "200", description = "Found orders and missing IDs")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDto<OrderDto>> getOrdersByIds(
+            @Parameter(description = "Comma-separated IDs to retrieve", required = true)
+            @RequestParam List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(orderRepository, OrderDto::getId, ids));
+    }
+
+    @Operation(summary = "Get orders by IDs from request body",
+            description = "Same as GET with ids, for ID lists too long for a query string")
+    @ApiResponse(responseCode = "200", description = "Found orders and missing IDs")
+    @PostMapping("/by-ids")
+    public ResponseEntity<MultiGetDto<OrderDto>> getOrdersByIdList(
+            @Parameter(description = "IDs to retrieve", required = true)
+            @RequestBody List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(orderRepository, OrderDto::getId, ids));
+    }
+
+    @Operation(summary = "Get all orders with selected fields",
+            description = "Returns only the requested fields of every order; only those columns are selected")
+    @ApiResponse(responseCode = "200", description = "Orders with the requested fields")
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<List<Map<String, Object>>> getAllOrdersFields(
+            @Parameter(description = "Comma-separated fields, e.g. id,status", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findAll(OrderDto.class, fields, null));
+    }
+
+    @Operation(summary = "Get order fields by ID", description = "Returns only the requested fields of a order")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Order found"),
+            @ApiResponse(responseCode = "404", description = "Order not found",
+                    content = @Content)
+    })
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getOrderFieldsById(
+            @Parameter(description = "ID of the order to retrieve", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Comma-separated fields, e.g. id,status", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findById(OrderDto.class, fields, id)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id)));
+    }
+
     @Operation(summary = "Update order", description = "Updates existing order information")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Order updated successfully"),
@@ -106,12 +185,50 @@ public class OrderController {
                         throw new ResourceNotFoundException("User not found with id: " + orderDto.getUserId());
                     }
 
+                    // Прежний статус запоминаем до save: merge перезапишет загруженную сущность
+                    String previousStatus = existingOrder.getStatus();
                     orderDto.setId(id);
-                    return ResponseEntity.ok(orderRepository.save(orderDto));
+                    OrderDto savedOrder = orderRepository.save(orderDto);
+                    queryCache.invalidate(BY_STATUS, previousStatus);
+                    queryCache.invalidate(BY_STATUS, savedOrder.getStatus());
+                    return ResponseEntity.ok(savedOrder);
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
     }
 
+    @Operation(summary = "Patch order",
+            description = "Applies a JSON Merge Patch with only the changed fields in one version-checked UPDATE. "
+                    + "The version goes in the patch or in If-Match; the new version is returned as ETag")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Order updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid patch",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Order or user not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Order was changed since the given version",
+                    content = @Content)
+    })
+    @PatchMapping(value = "/{id}", consumes = {MergePatchService.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchOrder(
+            @Parameter(description = "ID of the order to update", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Version the patch is based on, if it is not in the patch")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "Changed order fields", required = true)
+            @RequestBody JsonNode body) {
+        MergePatch patch = mergePatchService.read(OrderDto.class, body, ifMatch);
+        // Пользователя проверяем, только если он меняется
+        if (patch.has("userId") && !userRepository.existsById((Long) patch.get("userId"))) {
+            throw new ResourceNotFoundException("User not found with id: " + patch.get("userId"));
+        }
+        long version = mergePatchService.apply(OrderDto.class, id, patch)
+                .orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
+        if (patch.has("status")) {
+            queryCache.invalidateQuery(BY_STATUS);
+        }
+        return ResponseEntity.noContent().eTag(String.valueOf(version)).build();
+    }
+
     @Operation(summary = "Delete order", description = "Deletes an order by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Order deleted successfully"),
@@ -122,13 +239,30 @@ public class OrderController {
     public ResponseEntity<Void> deleteOrder(
             @Parameter(description = "ID of the order to delete", required = true)
             @PathVariable Long id) {
-        if (!orderRepository.existsById(id)) {
+        if (!deleteService.delete(OrderDto.class, id)) {
             throw new ResourceNotFoundException("Order not found with id: " + id);
         }
-        orderRepository.deleteById(id);
+        queryCache.invalidateQuery(BY_STATUS);
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(summary = "Delete orders by IDs",
+            description = "Deletes the listed orders in one transaction and lists the IDs that were not found")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Number of deleted orders and missing IDs"),
+            @ApiResponse(responseCode = "409",
+                    description = "Some of the orders are still referenced; none were deleted",
+                    content = @Content)
+    })
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<BulkDeleteDto> deleteOrdersByIds(
+            @Parameter(description = "Comma-separated IDs to delete", required = true)
+            @RequestParam List<Long> ids) {
+        BulkDeleteDto result = deleteService.deleteAll(OrderDto.class, ids);
+        queryCache.invalidateQuery(BY_STATUS);
+        return ResponseEntity.ok(result);
+    }
+
     @Operation(summary = "Get orders by user", description = "Returns all orders for a specific user")
     @ApiResponse(responseCode = "200", description = "List of user's orders",
             content = {@Content(mediaType = "application/json",
@@ -148,7 +282,24 @@ public class OrderController {
     public ResponseEntity<List<OrderDto>> getOrdersByStatus(
             @Parameter(description = "Status to filter by", required = true)
             @PathVariable String status) {
-        return ResponseEntity.ok(orderRepository.findByStatus(status));
+        return ResponseEntity.ok(queryCache.find(OrderDto.class, BY_STATUS, status,
+                () -> orderRepository.findIdsByStatus(status)));
+    }
+
+    @Operation(summary = "Delete orders older than a date",
+            description = "Deletes orders without payments or reviews dated before the given day in chunks, each in its own transaction")
+    @ApiResponse(responseCode = "200", description = "Number of deleted orders")
+    @DeleteMapping("/by-date")
+    public ResponseEntity<BulkDeleteDto> deleteOrdersBefore(
+            @Parameter(description = "Orders dated before this day are deleted (yyyy-MM-dd)", required = true)
+            @RequestParam String before) {
+        // Заказы, на которые ещё ссылаются платежи или отзывы, остаются: их нельзя удалить без них
+        BulkDeleteDto result = deleteService.deleteWhere(OrderDto.class,
+                "orderdate < ? AND NOT EXISTS (SELECT 1 FROM payment p WHERE p.orderid = orders.id)"
+                        + " AND NOT EXISTS (SELECT 1 FROM review r WHERE r.orderid = orders.id)",
+                LocalDate.parse(before));
+        queryCache.invalidateQuery(BY_STATUS);
+        return ResponseEntity.ok(result);
     }
 
     @Operation(summary = "Get orders by date range",
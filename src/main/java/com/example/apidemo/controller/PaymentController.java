@@ -1,8 +1,16 @@
 package com.example.apidemo.controller;
 
+import com.example.apidemo.cache.QueryResultCache;
+import com.example.apidemo.cache.SingleFlightLoader;
 import com.example.apidemo.dto.*;
 import com.example.apidemo.exception.ResourceNotFoundException;
 import com.example.apidemo.repository.*;
+import com.example.apidemo.service.EntityDeleteService;
+import com.example.apidemo.service.FieldProjectionService;
+import com.example.apidemo.service.MergePatch;
+import com.example.apidemo.service.MergePatchService;
+import com.example.apidemo.service.MultiGetService;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,28 +20,51 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import java.time.LocalDate;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/payments")
 @Tag(name = "Payment Management", description = "Endpoints for managing payments")
 public class PaymentController {
 
+    public static final String BY_METHOD = "PaymentRepo.findIdsByPaymentMethod";
+
     private final PaymentRepo paymentRepository;
     private final UserRepo userRepository;
     private final OrderRepo orderRepository;
+    private final QueryResultCache queryCache;
+    private final MultiGetService multiGetService;
+    private final FieldProjectionService fieldProjectionService;
+    private final SingleFlightLoader singleFlight;
+    private final EntityDeleteService deleteService;
+    private final MergePatchService mergePatchService;
 
     @Autowired
     public PaymentController(PaymentRepo paymentRepository,
                              UserRepo userRepository,
-                             OrderRepo orderRepository) {
+                             OrderRepo orderRepository,
+                             QueryResultCache queryCache,
+                             MultiGetService multiGetService,
+                             FieldProjectionService fieldProjectionService,
+                             SingleFlightLoader singleFlight,
+                             EntityDeleteService deleteService,
+                             MergePatchService mergePatchService) {
         this.paymentRepository = paymentRepository;
         this.userRepository = userRepository;
         this.orderRepository = orderRepository;
+        this.queryCache = queryCache;
+        this.multiGetService = multiGetService;
+        this.fieldProjectionService = fieldProjectionService;
+        this.singleFlight = singleFlight;
+        this.deleteService = deleteService;
+        this.mergePatchService = mergePatchService;
     }
 
     @Operation(summary = "Create a new payment", description = "Creates a new payment record")
@@ -63,6 +94,7 @@ public class PaymentController {
         }
 
         PaymentDto savedPayment = paymentRepository.save(paymentDto);
+        queryCache.invalidate(BY_METHOD, savedPayment.getPaymentMethod());
         return ResponseEntity.ok(savedPayment);
     }
 
@@ -87,11 +119,57 @@ public class PaymentController {
     public ResponseEntity<PaymentDto> getPaymentById(
             @Parameter(description = "ID of the payment to retrieve", required = true)
             @PathVariable Long id) {
-        PaymentDto payment = paymentRepository.findById(id)
+        PaymentDto payment = singleFlight.findById(PaymentDto.class, id, paymentRepository::findById)
                 .orElseThrow(() -> new ResourceNotFoundException("Payment not found with id: " + id));
         return ResponseEntity.ok(payment);
     }
 
+    @Operation(summary = "Get payments by IDs",
+            description = "Returns payments in request order and lists the IDs that were not found")
+    @ApiResponse(responseCode = "200", description = "Found payments and missing IDs")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDto<PaymentDto>> getPaymentsByIds(
+            @Parameter(description = "Comma-separated IDs to retrieve", required = true)
+            @RequestParam List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(paymentRepository, PaymentDto::getId, ids));
+    }
+
+    @Operation(summary = "Get payments by IDs from request body",
+            description = "Same as GET with ids, for ID lists too long for a query string")
+    @ApiResponse(responseCode = "200", description = "Found payments and missing IDs")
+    @PostMapping("/by-ids")
+    public ResponseEntity<MultiGetDto<PaymentDto>> getPaymentsByIdList(
+            @Parameter(description = "IDs to retrieve", required = true)
+            @RequestBody List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(paymentRepository, PaymentDto::getId, ids));
+    }
+
+    @Operation(summary = "Get all payments with selected fields",
+            description = "Returns only the requested fields of every payment; only those columns are selected")
+    @ApiResponse(responseCode = "200", description = "Payments with the requested fields")
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<List<Map<String, Object>>> getAllPaymentsFields(
+            @Parameter(description = "Comma-separated fields, e.g. id,price,paymentMethod", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findAll(PaymentDto.class, fields, null));
+    }
+
+    @Operation(summary = "Get payment fields by ID", description = "Returns only the requested fields of a payment")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Payment found"),
+            @ApiResponse(responseCode = "404", description = "Payment not found",
+                    content = @Content)
+    })
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getPaymentFieldsById(
+            @Parameter(description = "ID of the payment to retrieve", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Comma-separated fields, e.g. id,price,paymentMethod", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findById(PaymentDto.class, fields, id)
+                .orElseThrow(() -> new ResourceNotFoundException("Payment not found with id: " + id)));
+    }
+
     @Operation(summary = "Update payment", description = "Updates existing payment information")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Payment updated successfully"),
@@ -117,12 +195,53 @@ public class PaymentController {
                         throw new ResourceNotFoundException("Order not found with id: " + paymentDto.getOrderId());
                     }
 
+                    // Прежний способ оплаты запоминаем до save: merge перезапишет загруженную сущность
+                    String previousMethod = existingPayment.getPaymentMethod();
                     paymentDto.setId(id);
-                    return ResponseEntity.ok(paymentRepository.save(paymentDto));
+                    PaymentDto savedPayment = paymentRepository.save(paymentDto);
+                    queryCache.invalidate(BY_METHOD, previousMethod);
+                    queryCache.invalidate(BY_METHOD, savedPayment.getPaymentMethod());
+                    return ResponseEntity.ok(savedPayment);
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Payment not found with id: " + id));
     }
 
+    @Operation(summary = "Patch payment",
+            description = "Applies a JSON Merge Patch with only the changed fields in one version-checked UPDATE. "
+                    + "The version goes in the patch or in If-Match; the new version is returned as ETag")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Payment updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid patch",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Payment, user or order not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Payment was changed since the given version",
+                    content = @Content)
+    })
+    @PatchMapping(value = "/{id}", consumes = {MergePatchService.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchPayment(
+            @Parameter(description = "ID of the payment to update", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Version the patch is based on, if it is not in the patch")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "Changed payment fields", required = true)
+            @RequestBody JsonNode body) {
+        MergePatch patch = mergePatchService.read(PaymentDto.class, body, ifMatch);
+        // Пользователя и заказ проверяем, только если они меняются
+        if (patch.has("userId") && !userRepository.existsById((Long) patch.get("userId"))) {
+            throw new ResourceNotFoundException("User not found with id: " + patch.get("userId"));
+        }
+        if (patch.has("orderId") && !orderRepository.existsById((Long) patch.get("orderId"))) {
+            throw new ResourceNotFoundException("Order not found with id: " + patch.get("orderId"));
+        }
+        long version = mergePatchService.apply(PaymentDto.class, id, patch)
+                .orElseThrow(() -> new ResourceNotFoundException("Payment not found with id: " + id));
+        if (patch.has("paymentMethod")) {
+            queryCache.invalidateQuery(BY_METHOD);
+        }
+        return ResponseEntity.noContent().eTag(String.valueOf(version)).build();
+    }
+
     @Operation(summary = "Delete payment", description = "Deletes a payment by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Payment deleted successfully"),
@@ -133,13 +252,30 @@ public class PaymentController {
     public ResponseEntity<Void> deletePayment(
             @Parameter(description = "ID of the payment to delete", required = true)
             @PathVariable Long id) {
-        if (!paymentRepository.existsById(id)) {
+        if (!deleteService.delete(PaymentDto.class, id)) {
             throw new ResourceNotFoundException("Payment not found with id: " + id);
         }
-        paymentRepository.deleteById(id);
+        queryCache.invalidateQuery(BY_METHOD);
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(summary = "Delete payments by IDs",
+            description = "Deletes the listed payments in one transaction and lists the IDs that were not found")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Number of deleted payments and missing IDs"),
+            @ApiResponse(responseCode = "409",
+                    description = "Some of the payments are still referenced; none were deleted",
+                    content = @Content)
+    })
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<BulkDeleteDto> deletePaymentsByIds(
+            @Parameter(description = "Comma-separated IDs to delete", required = true)
+            @RequestParam List<Long> ids) {
+        BulkDeleteDto result = deleteService.deleteAll(PaymentDto.class, ids);
+        queryCache.invalidateQuery(BY_METHOD);
+        return ResponseEntity.ok(result);
+    }
+
     @Operation(summary = "Get payments by user", description = "Returns all payments by a specific user")
     @ApiResponse(responseCode = "200", description = "List of user's payments",
             content = {@Content(mediaType = "application/json",
@@ -162,6 +298,19 @@ public class PaymentController {
         return ResponseEntity.ok(paymentRepository.findByOrderId(orderId));
     }
 
+    @Operation(summary = "Delete payments older than a date",
+            description = "Deletes payments dated before the given day in chunks, each in its own transaction")
+    @ApiResponse(responseCode = "200", description = "Number of deleted payments")
+    @DeleteMapping("/by-date")
+    public ResponseEntity<BulkDeleteDto> deletePaymentsBefore(
+            @Parameter(description = "Payments dated before this day are deleted (yyyy-MM-dd)", required = true)
+            @RequestParam String before) {
+        BulkDeleteDto result = deleteService.deleteWhere(PaymentDto.class, "paymentdate < ?",
+                LocalDate.parse(before));
+        queryCache.invalidateQuery(BY_METHOD);
+        return ResponseEntity.ok(result);
+    }
+
     @Operation(summary = "Get payments by date range",
             description = "Returns all payments between start and end dates")
     @ApiResponse(responseCode = "200", description = "List of payments in date range",
@@ -187,6 +336,7 @@ public class PaymentController {
     public ResponseEntity<List<PaymentDto>> getPaymentsByMethod(
             @Parameter(description = "Payment method to filter by", required = true)
             @PathVariable String method) {
-        return ResponseEntity.ok(paymentRepository.findByPaymentMethod(method));
+        return ResponseEntity.ok(queryCache.find(PaymentDto.class, BY_METHOD, method,
+                () -> paymentRepository.findIdsByPaymentMethod(method)));
     }
 }
\ No newline at end of file
@@ -1,8 +1,15 @@
 package com.example.apidemo.controller;
 
+import com.example.apidemo.cache.SingleFlightLoader;
 import com.example.apidemo.dto.*;
 import com.example.apidemo.exception.ResourceNotFoundException;
 import com.example.apidemo.repository.*;
+import com.example.apidemo.service.EntityDeleteService;
+import com.example.apidemo.service.FieldProjectionService;
+import com.example.apidemo.service.MergePatch;
+import com.example.apidemo.service.MergePatchService;
+import com.example.apidemo.service.MultiGetService;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,11 +19,14 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/products")
@@ -26,14 +36,29 @@ public class ProductController {
     private final ProductRepo productRepository;
     private final BrandRepo brandRepository;
     private final CategoryRepo categoryRepository;
+    private final MultiGetService multiGetService;
+    private final FieldProjectionService fieldProjectionService;
+    private final SingleFlightLoader singleFlight;
+    private final EntityDeleteService deleteService;
+    private final MergePatchService mergePatchService;
 
     @Autowired
     public ProductController(ProductRepo productRepository,
                              BrandRepo brandRepository,
-                             CategoryRepo categoryRepository) {
+                             CategoryRepo categoryRepository,
+                             MultiGetService multiGetService,
+                             FieldProjectionService fieldProjectionService,
+                             SingleFlightLoader singleFlight,
+                             EntityDeleteService deleteService,
+                             MergePatchService mergePatchService) {
         this.productRepository = productRepository;
         this.brandRepository = brandRepository;
         this.categoryRepository = categoryRepository;
+        this.multiGetService = multiGetService;
+        this.fieldProjectionService = fieldProjectionService;
+        this.singleFlight = singleFlight;
+        this.deleteService = deleteService;
+        this.mergePatchService = mergePatchService;
     }
 
     @Operation(summary = "Create a new product", description = "Creates a new product in the system")
@@ -94,11 +119,57 @@ public class ProductController {
     public ResponseEntity<ProductDto> getProductById(
             @Parameter(description = "ID of the product to retrieve", required = true)
             @PathVariable Long id) {
-        ProductDto product = productRepository.findById(id)
+        ProductDto product = singleFlight.findById(ProductDto.class, id, productRepository::findById)
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
         return ResponseEntity.ok(product);
     }
 
+    @Operation(summary = "Get products by IDs",
+            description = "Returns products in request order and lists the IDs that were not found")
+    @ApiResponse(responseCode = "200", description = "Found products and missing IDs")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDto<ProductDto>> getProductsByIds(
+            @Parameter(description = "Comma-separated IDs to retrieve", required = true)
+            @RequestParam List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(productRepository, ProductDto::getId, ids));
+    }
+
+    @Operation(summary = "Get products by IDs from request body",
+            description = "Same as GET with ids, for ID lists too long for a query string")
+    @ApiResponse(responseCode = "200", description = "Found products and missing IDs")
+    @PostMapping("/by-ids")
+    public ResponseEntity<MultiGetDto<ProductDto>> getProductsByIdList(
+            @Parameter(description = "IDs to retrieve", required = true)
+            @RequestBody List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(productRepository, ProductDto::getId, ids));
+    }
+
+    @Operation(summary = "Get all products with selected fields",
+            description = "Returns only the requested fields of every product; only those columns are selected")
+    @ApiResponse(responseCode = "200", description = "Products with the requested fields")
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<List<Map<String, Object>>> getAllProductsFields(
+            @Parameter(description = "Comma-separated fields, e.g. id,productTitle,price", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findAll(ProductDto.class, fields, null));
+    }
+
+    @Operation(summary = "Get product fields by ID", description = "Returns only the requested fields of a product")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Product found"),
+            @ApiResponse(responseCode = "404", description = "Product not found",
+                    content = @Content)
+    })
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getProductFieldsById(
+            @Parameter(description = "ID of the product to retrieve", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Comma-separated fields, e.g. id,productTitle,price", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findById(ProductDto.class, fields, id)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id)));
+    }
+
     @Operation(summary = "Update product", description = "Updates existing product information")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Product updated successfully"),
@@ -131,6 +202,39 @@ public class ProductController {
                 .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
     }
 
+    @Operation(summary = "Patch product",
+            description = "Applies a JSON Merge Patch with only the changed fields in one version-checked UPDATE. "
+                    + "The version goes in the patch or in If-Match; the new version is returned as ETag")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Product updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid patch",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Product, brand or category not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Product was changed since the given version",
+                    content = @Content)
+    })
+    @PatchMapping(value = "/{id}", consumes = {MergePatchService.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchProduct(
+            @Parameter(description = "ID of the product to update", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Version the patch is based on, if it is not in the patch")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "Changed product fields", required = true)
+            @RequestBody JsonNode body) {
+        MergePatch patch = mergePatchService.read(ProductDto.class, body, ifMatch);
+        // Бренд и категорию проверяем, только если они меняются
+        if (patch.has("brand") && !brandRepository.existsById((Long) patch.get("brand"))) {
+            throw new ResourceNotFoundException("Brand not found with id: " + patch.get("brand"));
+        }
+        if (patch.has("category") && !categoryRepository.existsById((Long) patch.get("category"))) {
+            throw new ResourceNotFoundException("Category not found with id: " + patch.get("category"));
+        }
+        long version = mergePatchService.apply(ProductDto.class, id, patch)
+                .orElseThrow(() -> new ResourceNotFoundException("Product not found with id: " + id));
+        return ResponseEntity.noContent().eTag(String.valueOf(version)).build();
+    }
+
     @Operation(summary = "Delete product", description = "Deletes a product by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Product deleted successfully"),
@@ -141,13 +245,28 @@ public class ProductController {
     public ResponseEntity<Void> deleteProduct(
             @Parameter(description = "ID of the product to delete", required = true)
             @PathVariable Long id) {
-        if (!productRepository.existsById(id)) {
+        if (!deleteService.delete(ProductDto.class, id)) {
             throw new ResourceNotFoundException("Product not found with id: " + id);
         }
-        productRepository.deleteById(id);
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(summary = "Delete products by IDs",
+            description = "Deletes the listed products in one transaction and lists the IDs that were not found")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Number of deleted products and missing IDs"),
+            @ApiResponse(responseCode = "409",
+                    description = "Some of the products are still referenced; none were deleted",
+                    content = @Content)
+    })
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<BulkDeleteDto> deleteProductsByIds(
+            @Parameter(description = "Comma-separated IDs to delete", required = true)
+            @RequestParam List<Long> ids) {
+        BulkDeleteDto result = deleteService.deleteAll(ProductDto.class, ids);
+        return ResponseEntity.ok(result);
+    }
+
     @Operation(summary = "Search products by title", description = "Returns products containing the search string in title")
     @ApiResponse(responseCode = "200", description = "List of matching products",
             content = {@Content(mediaType = "application/json",
@@ -194,4 +313,63 @@ public class ProductController {
             @RequestParam Integer maxPrice) {
         return ResponseEntity.ok(productRepository.findByPriceRange(minPrice, maxPrice));
     }
+
+    @Operation(summary = "Search products by title with selected fields",
+            description = "Returns only the requested fields of products containing the search string in title")
+    @ApiResponse(responseCode = "200", description = "Matching products with the requested fields")
+    @GetMapping(value = "/search", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> searchProductsFields(
+            @Parameter(description = "Search string for product title", required = true)
+            @RequestParam String title,
+            @Parameter(description = "Comma-separated fields, e.g. id,productTitle,price", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findAll(ProductDto.class, fields, (root, query, cb) ->
+                cb.like(cb.lower(root.get("productTitle")), "%" + escapeLike(title.toLowerCase()) + "%", '\\')));
+    }
+
+    @Operation(summary = "Filter products by brand with selected fields",
+            description = "Returns only the requested fields of products of specified brand")
+    @ApiResponse(responseCode = "200", description = "Products of the brand with the requested fields")
+    @GetMapping(value = "/by-brand/{brandId}", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getProductsByBrandFields(
+            @Parameter(description = "ID of the brand", required = true)
+            @PathVariable Long brandId,
+            @Parameter(description = "Comma-separated fields, e.g. id,productTitle,price", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findAll(ProductDto.class, fields, (root, query, cb) ->
+                cb.equal(root.get("brand").get("id"), brandId)));
+    }
+
+    @Operation(summary = "Filter products by category with selected fields",
+            description = "Returns only the requested fields of products of specified category")
+    @ApiResponse(responseCode = "200", description = "Products of the category with the requested fields")
+    @GetMapping(value = "/by-category/{categoryId}", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getProductsByCategoryFields(
+            @Parameter(description = "ID of the category", required = true)
+            @PathVariable Long categoryId,
+            @Parameter(description = "Comma-separated fields, e.g. id,productTitle,price", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findAll(ProductDto.class, fields, (root, query, cb) ->
+                cb.equal(root.get("category").get("id"), categoryId)));
+    }
+
+    @Operation(summary = "Filter products by price range with selected fields",
+            description = "Returns only the requested fields of products with price between min and max values")
+    @ApiResponse(responseCode = "200", description = "Products in the price range with the requested fields")
+    @GetMapping(value = "/by-price", params = "fields")
+    public ResponseEntity<List<Map<String, Object>>> getProductsByPriceRangeFields(
+            @Parameter(description = "Minimum price", required = true)
+            @RequestParam Integer minPrice,
+            @Parameter(description = "Maximum price", required = true)
+            @RequestParam Integer maxPrice,
+            @Parameter(description = "Comma-separated fields, e.g. id,productTitle,price", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findAll(ProductDto.class, fields, (root, query, cb) ->
+                cb.between(root.get("price"), minPrice, maxPrice)));
+    }
+
+    // Как и Containing в производных запросах, ищем подстроку буквально, без спецсимволов LIKE
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
 }
\ No newline at end of file
@@ -0,0 +1,126 @@
+package com.example.apidemo.controller;
+
+import com.example.apidemo.dto.ProductDto;
+import com.example.apidemo.repository.ProductRepo;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * Потоковая выдача товаров в NDJSON. Товары читаются keyset-страницами, и следующая страница
+ * запрашивается только после того, как предыдущая ушла клиенту: медленный клиент тормозит чтение
+ * из БД. Соединение из пула занято лишь на время одного запроса страницы: Hibernate возвращает его
+ * после каждой транзакции (hibernate.connection.handling_mode в application.properties).
+ * Неблокирующая версия тех же чтений на WebFlux и R2DBC собирается отдельно из src/reactive.
+ */
+@RestController
+@RequestMapping("/api/products/stream")
+@Tag(name = "Product Streaming", description = "Read-only product listings streamed as NDJSON")
+public class ProductStreamController {
+
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ProductRepo productRepository;
+    private final EntityManager entityManager;
+    private final ObjectWriter writer;
+    private final int batchSize;
+
+    @Autowired
+    public ProductStreamController(ProductRepo productRepository,
+                                   EntityManager entityManager,
+                                   ObjectMapper objectMapper,
+                                   @Value("${app.products.stream.batch-size:500}") int batchSize) {
+        this.productRepository = productRepository;
+        this.entityManager = entityManager;
+        this.writer = objectMapper.writerFor(ProductDto.class);
+        this.batchSize = batchSize;
+    }
+
+    @Operation(summary = "Stream all products", description = "Streams every product as newline-delimited JSON")
+    @ApiResponse(responseCode = "200", description = "Products, one JSON object per line")
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> streamAllProducts() {
+        return stream(productRepository::findPageAfter);
+    }
+
+    @Operation(summary = "Stream products by title", description = "Streams products containing the search string in title")
+    @ApiResponse(responseCode = "200", description = "Matching products, one JSON object per line")
+    @GetMapping("/search")
+    public ResponseEntity<StreamingResponseBody> streamProductsByTitle(
+            @Parameter(description = "Search string for product title", required = true)
+            @RequestParam String title) {
+        return stream((afterId, page) -> productRepository.findPageByTitleAfter(title, afterId, page));
+    }
+
+    @Operation(summary = "Stream products by brand", description = "Streams products of specified brand")
+    @ApiResponse(responseCode = "200", description = "Products of the brand, one JSON object per line")
+    @GetMapping("/by-brand/{brandId}")
+    public ResponseEntity<StreamingResponseBody> streamProductsByBrand(
+            @Parameter(description = "ID of the brand", required = true)
+            @PathVariable Long brandId) {
+        return stream((afterId, page) -> productRepository.findPageByBrandAfter(brandId, afterId, page));
+    }
+
+    @Operation(summary = "Stream products by category", description = "Streams products of specified category")
+    @ApiResponse(responseCode = "200", description = "Products of the category, one JSON object per line")
+    @GetMapping("/by-category/{categoryId}")
+    public ResponseEntity<StreamingResponseBody> streamProductsByCategory(
+            @Parameter(description = "ID of the category", required = true)
+            @PathVariable Long categoryId) {
+        return stream((afterId, page) -> productRepository.findPageByCategoryAfter(categoryId, afterId, page));
+    }
+
+    @Operation(summary = "Stream products by price range",
+            description = "Streams products with price between min and max values")
+    @ApiResponse(responseCode = "200", description = "Products in the price range, one JSON object per line")
+    @GetMapping("/by-price")
+    public ResponseEntity<StreamingResponseBody> streamProductsByPriceRange(
+            @Parameter(description = "Minimum price", required = true)
+            @RequestParam Integer minPrice,
+            @Parameter(description = "Maximum price", required = true)
+            @RequestParam Integer maxPrice) {
+        return stream((afterId, page) ->
+                productRepository.findPageByPriceRangeAfter(minPrice, maxPrice, afterId, page));
+    }
+
+    private ResponseEntity<StreamingResponseBody> stream(BiFunction<Long, Pageable, List<ProductDto>> pages) {
+        Pageable page = PageRequest.of(0, batchSize);
+        StreamingResponseBody body = out -> {
+            JsonGenerator generator = writer.createGenerator(out)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .setRootValueSeparator(null);
+            long afterId = 0;
+            List<ProductDto> batch;
+            do {
+                batch = pages.apply(afterId, page);
+                for (ProductDto product : batch) {
+                    writer.writeValue(generator, product);
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+                if (!batch.isEmpty()) {
+                    afterId = batch.get(batch.size() - 1).getId();
+                }
+                // При open-in-view контекст живёт весь запрос, не копим в нём отданные товары
+                entityManager.clear();
+            } while (batch.size() == batchSize);
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+}
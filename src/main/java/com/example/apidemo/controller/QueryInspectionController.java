@@ -0,0 +1,41 @@
+package com.example.apidemo.controller;
+
+import com.example.apidemo.metrics.QueryInspector;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin/queries")
+@Tag(name = "Query Inspection", description = "Slow SQL statements and requests with too many statements")
+public class QueryInspectionController {
+
+    private final QueryInspector inspector;
+
+    @Autowired
+    public QueryInspectionController(QueryInspector inspector) {
+        this.inspector = inspector;
+    }
+
+    @Operation(summary = "Get recent slow queries", description = "Returns the most recent statements over the latency threshold")
+    @ApiResponse(responseCode = "200", description = "Recent slow queries, newest first")
+    @GetMapping("/slow")
+    public ResponseEntity<List<QueryInspector.SlowQuery>> getSlowQueries() {
+        return ResponseEntity.ok(inspector.getSlowQueries());
+    }
+
+    @Operation(summary = "Get requests flagged as N+1",
+            description = "Returns the most recent requests that executed more statements than allowed")
+    @ApiResponse(responseCode = "200", description = "Recent flagged requests, newest first")
+    @GetMapping("/flagged")
+    public ResponseEntity<List<QueryInspector.FlaggedRequest>> getFlaggedRequests() {
+        return ResponseEntity.ok(inspector.getFlaggedRequests());
+    }
+}
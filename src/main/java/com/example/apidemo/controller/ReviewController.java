@@ -1,8 +1,17 @@
 package com.example.apidemo.controller;
 
+import com.example.apidemo.cache.SingleFlightLoader;
 import com.example.apidemo.dto.*;
+import com.example.apidemo.exception.BadRequestException;
 import com.example.apidemo.exception.ResourceNotFoundException;
 import com.example.apidemo.repository.*;
+import com.example.apidemo.service.EntityDeleteService;
+import com.example.apidemo.service.FieldProjectionService;
+import com.example.apidemo.service.MergePatch;
+import com.example.apidemo.service.MergePatchService;
+import com.example.apidemo.service.MultiGetService;
+import com.example.apidemo.service.ReviewSearchService;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,10 +21,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/reviews")
@@ -25,14 +39,32 @@ public class ReviewController {
     private final ReviewRepo reviewRepository;
     private final UserRepo userRepository;
     private final OrderRepo orderRepository;
+    private final MultiGetService multiGetService;
+    private final FieldProjectionService fieldProjectionService;
+    private final SingleFlightLoader singleFlight;
+    private final EntityDeleteService deleteService;
+    private final MergePatchService mergePatchService;
+    private final ReviewSearchService reviewSearchService;
 
     @Autowired
     public ReviewController(ReviewRepo reviewRepository,
                             UserRepo userRepository,
-                            OrderRepo orderRepository) {
+                            OrderRepo orderRepository,
+                            MultiGetService multiGetService,
+                            FieldProjectionService fieldProjectionService,
+                            SingleFlightLoader singleFlight,
+                            EntityDeleteService deleteService,
+                            MergePatchService mergePatchService,
+                            ReviewSearchService reviewSearchService) {
         this.reviewRepository = reviewRepository;
         this.userRepository = userRepository;
         this.orderRepository = orderRepository;
+        this.multiGetService = multiGetService;
+        this.fieldProjectionService = fieldProjectionService;
+        this.singleFlight = singleFlight;
+        this.deleteService = deleteService;
+        this.mergePatchService = mergePatchService;
+        this.reviewSearchService = reviewSearchService;
     }
 
     @Operation(summary = "Create a new review", description = "Creates a new product review")
@@ -93,11 +125,57 @@ public class ReviewController {
     public ResponseEntity<ReviewDto> getReviewById(
             @Parameter(description = "ID of the review to retrieve", required = true)
             @PathVariable Long id) {
-        ReviewDto review = reviewRepository.findById(id)
+        ReviewDto review = singleFlight.findById(ReviewDto.class, id, reviewRepository::findById)
                 .orElseThrow(() -> new ResourceNotFoundException("Review not found with id: " + id));
         return ResponseEntity.ok(review);
     }
 
+    @Operation(summary = "Get reviews by IDs",
+            description = "Returns reviews in request order and lists the IDs that were not found")
+    @ApiResponse(responseCode = "200", description = "Found reviews and missing IDs")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDto<ReviewDto>> getReviewsByIds(
+            @Parameter(description = "Comma-separated IDs to retrieve", required = true)
+            @RequestParam List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(reviewRepository, ReviewDto::getId, ids));
+    }
+
+    @Operation(summary = "Get reviews by IDs from request body",
+            description = "Same as GET with ids, for ID lists too long for a query string")
+    @ApiResponse(responseCode = "200", description = "Found reviews and missing IDs")
+    @PostMapping("/by-ids")
+    public ResponseEntity<MultiGetDto<ReviewDto>> getReviewsByIdList(
+            @Parameter(description = "IDs to retrieve", required = true)
+            @RequestBody List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(reviewRepository, ReviewDto::getId, ids));
+    }
+
+    @Operation(summary = "Get all reviews with selected fields",
+            description = "Returns only the requested fields of every review; only those columns are selected")
+    @ApiResponse(responseCode = "200", description = "Reviews with the requested fields")
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<List<Map<String, Object>>> getAllReviewsFields(
+            @Parameter(description = "Comma-separated fields, e.g. id,reviewTitle,rating", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findAll(ReviewDto.class, fields, null));
+    }
+
+    @Operation(summary = "Get review fields by ID", description = "Returns only the requested fields of a review")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Review found"),
+            @ApiResponse(responseCode = "404", description = "Review not found",
+                    content = @Content)
+    })
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getReviewFieldsById(
+            @Parameter(description = "ID of the review to retrieve", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Comma-separated fields, e.g. id,reviewTitle,rating", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findById(ReviewDto.class, fields, id)
+                .orElseThrow(() -> new ResourceNotFoundException("Review not found with id: " + id)));
+    }
+
     @Operation(summary = "Update review", description = "Updates existing review information")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Review updated successfully"),
@@ -129,6 +207,39 @@ public class ReviewController {
                 .orElseThrow(() -> new ResourceNotFoundException("Review not found with id: " + id));
     }
 
+    @Operation(summary = "Patch review",
+            description = "Applies a JSON Merge Patch with only the changed fields in one version-checked UPDATE. "
+                    + "The version goes in the patch or in If-Match; the new version is returned as ETag")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Review updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid patch",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Review, user or order not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Review was changed since the given version",
+                    content = @Content)
+    })
+    @PatchMapping(value = "/{id}", consumes = {MergePatchService.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchReview(
+            @Parameter(description = "ID of the review to update", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Version the patch is based on, if it is not in the patch")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "Changed review fields", required = true)
+            @RequestBody JsonNode body) {
+        MergePatch patch = mergePatchService.read(ReviewDto.class, body, ifMatch);
+        // Пользователя и заказ проверяем, только если они меняются
+        if (patch.has("userId") && !userRepository.existsById((Long) patch.get("userId"))) {
+            throw new ResourceNotFoundException("User not found with id: " + patch.get("userId"));
+        }
+        if (patch.has("orderId") && !orderRepository.existsById((Long) patch.get("orderId"))) {
+            throw new ResourceNotFoundException("Order not found with id: " + patch.get("orderId"));
+        }
+        long version = mergePatchService.apply(ReviewDto.class, id, patch)
+                .orElseThrow(() -> new ResourceNotFoundException("Review not found with id: " + id));
+        return ResponseEntity.noContent().eTag(String.valueOf(version)).build();
+    }
+
     @Operation(summary = "Delete review", description = "Deletes a review by ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "204", description = "Review deleted successfully"),
@@ -139,13 +250,28 @@ public class ReviewController {
     public ResponseEntity<Void> deleteReview(
             @Parameter(description = "ID of the review to delete", required = true)
             @PathVariable Long id) {
-        if (!reviewRepository.existsById(id)) {
+        if (!deleteService.delete(ReviewDto.class, id)) {
             throw new ResourceNotFoundException("Review not found with id: " + id);
         }
-        reviewRepository.deleteById(id);
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(summary = "Delete reviews by IDs",
+            description = "Deletes the listed reviews in one transaction and lists the IDs that were not found")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Number of deleted reviews and missing IDs"),
+            @ApiResponse(responseCode = "409",
+                    description = "Some of the reviews are still referenced; none were deleted",
+                    content = @Content)
+    })
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<BulkDeleteDto> deleteReviewsByIds(
+            @Parameter(description = "Comma-separated IDs to delete", required = true)
+            @RequestParam List<Long> ids) {
+        BulkDeleteDto result = deleteService.deleteAll(ReviewDto.class, ids);
+        return ResponseEntity.ok(result);
+    }
+
     @Operation(summary = "Get reviews by user", description = "Returns all reviews by a specific user")
     @ApiResponse(responseCode = "200", description = "List of user's reviews",
             content = {@Content(mediaType = "application/json",
@@ -178,8 +304,53 @@ public class ReviewController {
             @Parameter(description = "Minimum rating value (1-5)", required = true)
             @RequestParam Integer minRating) {
         if (minRating < 1 || minRating > 5) {
-            throw new IllegalArgumentException("Rating must be between 1 and 5");
+            throw new BadRequestException("Rating must be between 1 and 5");
         }
         return ResponseEntity.ok(reviewRepository.findByMinRating(minRating));
     }
+
+    @Operation(summary = "Search reviews by title",
+            description = "Full-text search over review titles, most relevant first. Supports \"quoted phrases\", "
+                    + "or and -excluded words; rating and date filters are optional and can be combined")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of matching reviews",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = ReviewSearchDto.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid query or filters",
+                    content = @Content)
+    })
+    @GetMapping("/search")
+    public ResponseEntity<ReviewSearchDto> searchReviews(
+            @Parameter(description = "Words to search for in review titles", required = true)
+            @RequestParam String q,
+            @Parameter(description = "Minimum rating (1-5)")
+            @RequestParam(required = false) Integer minRating,
+            @Parameter(description = "Maximum rating (1-5)")
+            @RequestParam(required = false) Integer maxRating,
+            @Parameter(description = "Reviews dated on or after this day (yyyy-MM-dd)")
+            @RequestParam(required = false) String startDate,
+            @Parameter(description = "Reviews dated on or before this day (yyyy-MM-dd)")
+            @RequestParam(required = false) String endDate,
+            @Parameter(description = "Page number, starting from 0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size")
+            @RequestParam(defaultValue = "20") int size) {
+        if ((minRating != null && (minRating < 1 || minRating > 5))
+                || (maxRating != null && (maxRating < 1 || maxRating > 5))) {
+            throw new BadRequestException("Rating must be between 1 and 5");
+        }
+        return ResponseEntity.ok(reviewSearchService.search(q, minRating, maxRating,
+                parseDate(startDate), parseDate(endDate), page, size));
+    }
+
+    private static LocalDate parseDate(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("Date must be in yyyy-MM-dd format: " + value);
+        }
+    }
 }
\ No newline at end of file
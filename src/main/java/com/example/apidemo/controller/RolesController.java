@@ -1,19 +1,38 @@
 package com.example.apidemo.controller;
 
+import com.example.apidemo.cache.RoleMembershipIndex;
+import com.example.apidemo.cache.SingleFlightLoader;
+import com.example.apidemo.cache.SnapshotCache;
+import com.example.apidemo.dto.BulkDeleteDto;
+import com.example.apidemo.dto.MultiGetDto;
 import com.example.apidemo.dto.RolesDto;
+import com.example.apidemo.exception.BadRequestException;
 import com.example.apidemo.exception.ResourceNotFoundException;
 import com.example.apidemo.repository.RolesRepo;
+import com.example.apidemo.service.EntityDeleteService;
+import com.example.apidemo.service.FieldProjectionService;
+import com.example.apidemo.service.MergePatch;
+import com.example.apidemo.service.MergePatchService;
+import com.example.apidemo.service.MultiGetService;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/roles")
@@ -21,10 +40,31 @@ import java.util.List;
 public class RolesController {
 
     private final RolesRepo repository;
+    private final SnapshotCache<RolesDto> snapshot;
+    private final RoleMembershipIndex membershipIndex;
+    private final MultiGetService multiGetService;
+    private final FieldProjectionService fieldProjectionService;
+    private final SingleFlightLoader singleFlight;
+    private final EntityDeleteService deleteService;
+    private final MergePatchService mergePatchService;
 
     @Autowired
-    public RolesController(RolesRepo repository) {
+    public RolesController(RolesRepo repository,
+                           SnapshotCache<RolesDto> snapshot,
+                           RoleMembershipIndex membershipIndex,
+                           MultiGetService multiGetService,
+                           FieldProjectionService fieldProjectionService,
+                           SingleFlightLoader singleFlight,
+                           EntityDeleteService deleteService,
+                           MergePatchService mergePatchService) {
         this.repository = repository;
+        this.snapshot = snapshot;
+        this.membershipIndex = membershipIndex;
+        this.multiGetService = multiGetService;
+        this.fieldProjectionService = fieldProjectionService;
+        this.singleFlight = singleFlight;
+        this.deleteService = deleteService;
+        this.mergePatchService = mergePatchService;
     }
 
     @Operation(summary = "Create a new role", description = "Creates a new role in the system")
@@ -42,13 +82,17 @@ public class RolesController {
         }
 
         RolesDto savedRole = repository.save(rolesDto);
+        snapshot.refresh();
         return ResponseEntity.ok(savedRole);
     }
 
     @Operation(summary = "Get all roles", description = "Returns a list of all roles")
     @GetMapping
-    public ResponseEntity<List<RolesDto>> getAllRoles() {
-        return ResponseEntity.ok(repository.findAll());
+    public ResponseEntity<byte[]> getAllRoles(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest webRequest) {
+        // Отдаём готовые байты из снимка, без БД и сериализации
+        return snapshot.toResponse(acceptEncoding, webRequest);
     }
 
     @Operation(summary = "Get role by ID", description = "Returns a single role by ID")
@@ -57,11 +101,53 @@ public class RolesController {
     public ResponseEntity<RolesDto> getRoleById(
             @Parameter(description = "ID of the role to retrieve", required = true)
             @PathVariable Long id) {
-        RolesDto role = repository.findById(id)
+        RolesDto role = singleFlight.findById(RolesDto.class, id, repository::findById)
                 .orElseThrow(() -> new ResourceNotFoundException("Role not found with id: " + id));
         return ResponseEntity.ok(role);
     }
 
+    @Operation(summary = "Get roles by IDs",
+            description = "Returns roles in request order and lists the IDs that were not found")
+    @ApiResponse(responseCode = "200", description = "Found roles and missing IDs")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDto<RolesDto>> getRolesByIds(
+            @Parameter(description = "Comma-separated IDs to retrieve", required = true)
+            @RequestParam List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(repository, RolesDto::getId, ids));
+    }
+
+    @Operation(summary = "Get roles by IDs from request body",
+            description = "Same as GET with ids, for ID lists too long for a query string")
+    @ApiResponse(responseCode = "200", description = "Found roles and missing IDs")
+    @PostMapping("/by-ids")
+    public ResponseEntity<MultiGetDto<RolesDto>> getRolesByIdList(
+            @Parameter(description = "IDs to retrieve", required = true)
+            @RequestBody List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(repository, RolesDto::getId, ids));
+    }
+
+    @Operation(summary = "Get all roles with selected fields",
+            description = "Returns only the requested fields of every role; only those columns are selected")
+    @ApiResponse(responseCode = "200", description = "Roles with the requested fields")
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<List<Map<String, Object>>> getAllRolesFields(
+            @Parameter(description = "Comma-separated fields, e.g. id,characterTitle", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findAll(RolesDto.class, fields, null));
+    }
+
+    @Operation(summary = "Get role fields by ID", description = "Returns only the requested fields of a role")
+    @ApiResponse(responseCode = "404", description = "Role not found")
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getRoleFieldsById(
+            @Parameter(description = "ID of the role to retrieve", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Comma-separated fields, e.g. id,characterTitle", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findById(RolesDto.class, fields, id)
+                .orElseThrow(() -> new ResourceNotFoundException("Role not found with id: " + id)));
+    }
+
     @Operation(summary = "Update role", description = "Updates existing role information")
     @ApiResponse(responseCode = "404", description = "Role not found")
     @PutMapping("/{id}")
@@ -73,21 +159,115 @@ public class RolesController {
         return repository.findById(id)
                 .map(existingRole -> {
                     rolesDto.setId(id);
-                    return ResponseEntity.ok(repository.save(rolesDto));
+                    RolesDto savedRole = repository.save(rolesDto);
+                    snapshot.refresh();
+                    membershipIndex.invalidate(id);
+                    return ResponseEntity.ok(savedRole);
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Role not found with id: " + id));
     }
 
+    @Operation(summary = "Patch role",
+            description = "Applies a JSON Merge Patch with only the changed fields in one version-checked UPDATE. "
+                    + "The version goes in the patch or in If-Match; the new version is returned as ETag")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Role updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid patch",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Role not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Role was changed since the given version",
+                    content = @Content)
+    })
+    @PatchMapping(value = "/{id}", consumes = {MergePatchService.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchRole(
+            @Parameter(description = "ID of the role to update", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Version the patch is based on, if it is not in the patch")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "Changed role fields", required = true)
+            @RequestBody JsonNode body) {
+        MergePatch patch = mergePatchService.read(RolesDto.class, body, ifMatch);
+        long version = mergePatchService.apply(RolesDto.class, id, patch)
+                .orElseThrow(() -> new ResourceNotFoundException("Role not found with id: " + id));
+        snapshot.refresh();
+        membershipIndex.invalidate(id);
+        return ResponseEntity.noContent().eTag(String.valueOf(version)).build();
+    }
+
     @Operation(summary = "Delete role", description = "Deletes a role by ID")
     @ApiResponse(responseCode = "204", description = "Role deleted successfully")
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteRole(
             @Parameter(description = "ID of the role to delete", required = true)
             @PathVariable Long id) {
-        if (!repository.existsById(id)) {
+        if (!deleteService.delete(RolesDto.class, id)) {
             throw new ResourceNotFoundException("Role not found with id: " + id);
         }
-        repository.deleteById(id);
+        snapshot.refresh();
+        membershipIndex.invalidate(id);
         return ResponseEntity.noContent().build();
     }
+
+    @Operation(summary = "Delete roles by IDs",
+            description = "Deletes the listed roles in one transaction and lists the IDs that were not found")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Number of deleted roles and missing IDs"),
+            @ApiResponse(responseCode = "409",
+                    description = "Some of the roles are still referenced; none were deleted",
+                    content = @Content)
+    })
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<BulkDeleteDto> deleteRolesByIds(
+            @Parameter(description = "Comma-separated IDs to delete", required = true)
+            @RequestParam List<Long> ids) {
+        BulkDeleteDto result = deleteService.deleteAll(RolesDto.class, ids);
+        snapshot.refresh();
+        // Для id, которых не было, это ничего не меняет
+        ids.forEach(membershipIndex::invalidate);
+        return ResponseEntity.ok(result);
+    }
+
+    @Operation(summary = "List role members", description = "Returns a page of IDs of users with the role")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Page of user IDs"),
+            @ApiResponse(responseCode = "400", description = "Invalid page or size",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "Role not found",
+                    content = @Content)
+    })
+    @GetMapping("/{id}/users")
+    public ResponseEntity<Map<String, Object>> getRoleMembers(
+            @Parameter(description = "ID of the role", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Page number, starting from 0")
+            @RequestParam(defaultValue = "0") int page,
+            @Parameter(description = "Page size")
+            @RequestParam(defaultValue = "100") int size) {
+        if (page < 0 || size < 1 || size > 10_000) {
+            throw new BadRequestException("Page must be >= 0 and size between 1 and 10000");
+        }
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("roleId", id);
+        body.put("page", page);
+        body.put("size", size);
+        body.put("total", membershipIndex.count(id));
+        body.put("userIds", membershipIndex.page(id, page, size));
+        return ResponseEntity.ok(body);
+    }
+
+    @Operation(summary = "Check role membership", description = "Returns whether the user has the role")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Membership flag"),
+            @ApiResponse(responseCode = "404", description = "Role not found",
+                    content = @Content)
+    })
+    @GetMapping("/{id}/users/{userId}")
+    public ResponseEntity<Boolean> isRoleMember(
+            @Parameter(description = "ID of the role", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "ID of the user", required = true)
+            @PathVariable Long userId) {
+        return ResponseEntity.ok(membershipIndex.isMember(id, userId));
+    }
 }
\ No newline at end of file
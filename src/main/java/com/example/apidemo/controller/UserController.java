@@ -1,8 +1,21 @@
 package com.example.apidemo.controller;
 
+import com.example.apidemo.cache.RoleMembershipIndex;
+import com.example.apidemo.cache.SingleFlightLoader;
+import com.example.apidemo.dto.BulkDeleteDto;
+import com.example.apidemo.dto.LoginDto;
+import com.example.apidemo.dto.MultiGetDto;
 import com.example.apidemo.dto.UserDto;
 import com.example.apidemo.exception.ResourceNotFoundException;
 import com.example.apidemo.repository.UserRepo;
+import com.example.apidemo.service.CredentialService;
+import com.example.apidemo.service.EntityDeleteService;
+import com.example.apidemo.service.FieldProjectionService;
+import com.example.apidemo.service.MergePatch;
+import com.example.apidemo.service.MergePatchService;
+import com.example.apidemo.service.MultiGetService;
+import com.example.apidemo.service.UserUniquenessFilter;
+import com.fasterxml.jackson.databind.JsonNode;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -12,11 +25,15 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
@@ -24,10 +41,34 @@ import java.util.List;
 public class UserController {
 
     private final UserRepo repository;
+    private final CredentialService credentialService;
+    private final UserUniquenessFilter uniquenessFilter;
+    private final RoleMembershipIndex roleMembershipIndex;
+    private final MultiGetService multiGetService;
+    private final FieldProjectionService fieldProjectionService;
+    private final SingleFlightLoader singleFlight;
+    private final EntityDeleteService deleteService;
+    private final MergePatchService mergePatchService;
 
     @Autowired
-    public UserController(UserRepo repository) {
+    public UserController(UserRepo repository,
+                          CredentialService credentialService,
+                          UserUniquenessFilter uniquenessFilter,
+                          RoleMembershipIndex roleMembershipIndex,
+                          MultiGetService multiGetService,
+                          FieldProjectionService fieldProjectionService,
+                          SingleFlightLoader singleFlight,
+                          EntityDeleteService deleteService,
+                          MergePatchService mergePatchService) {
         this.repository = repository;
+        this.credentialService = credentialService;
+        this.uniquenessFilter = uniquenessFilter;
+        this.roleMembershipIndex = roleMembershipIndex;
+        this.multiGetService = multiGetService;
+        this.fieldProjectionService = fieldProjectionService;
+        this.singleFlight = singleFlight;
+        this.deleteService = deleteService;
+        this.mergePatchService = mergePatchService;
     }
 
     @Operation(summary = "Register a new user", description = "Creates a new user in the system")
@@ -36,6 +77,8 @@ public class UserController {
             @ApiResponse(responseCode = "400", description = "Invalid input data",
                     content = @Content),
             @ApiResponse(responseCode = "409", description = "User already exists",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Credential service is overloaded",
                     content = @Content)
     })
     @PostMapping
@@ -47,11 +90,18 @@ public class UserController {
         // Если key должен генерироваться автоматически
         userDto.setKey(null);
 
-        if (repository.existsByPhoneNumber(userDto.getPhoneNumber())) {
-            return ResponseEntity.status(HttpStatus.CONFLICT).build();
-        }
+        // Проверяем уникальность до дорогого хеширования пароля
+        uniquenessFilter.checkAvailable(userDto.getPhoneNumber(), userDto.getClientLogin(), null);
 
-        UserDto savedUser = repository.save(userDto);
+        userDto.setClientPassword(credentialService.hash(userDto.getClientPassword()));
+        UserDto savedUser;
+        try {
+            savedUser = repository.save(userDto);
+        } catch (DataIntegrityViolationException e) {
+            throw uniquenessFilter.toConflict(e);
+        }
+        uniquenessFilter.record(savedUser);
+        roleMembershipIndex.onUserSaved(savedUser);
         return ResponseEntity.ok(savedUser);
     }
 
@@ -61,6 +111,10 @@ public class UserController {
             @ApiResponse(responseCode = "400", description = "Invalid input data",
                     content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "Phone number or login already taken",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Credential service is overloaded",
                     content = @Content)
     })
     @PutMapping("/{id}")
@@ -71,12 +125,100 @@ public class UserController {
             @Valid @RequestBody UserDto userDto) {
         return repository.findById(id)
                 .map(existingUser -> {
+                    uniquenessFilter.checkAvailable(userDto.getPhoneNumber(), userDto.getClientLogin(), id);
+
                     userDto.setKey(id);
-                    return ResponseEntity.ok(repository.save(userDto));
+                    userDto.setClientPassword(credentialService.hash(userDto.getClientPassword()));
+                    UserDto savedUser;
+                    try {
+                        savedUser = repository.save(userDto);
+                    } catch (DataIntegrityViolationException e) {
+                        throw uniquenessFilter.toConflict(e);
+                    }
+                    uniquenessFilter.record(savedUser);
+                    roleMembershipIndex.onUserSaved(savedUser);
+                    return ResponseEntity.ok(savedUser);
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
     }
 
+    @Operation(summary = "Patch user",
+            description = "Applies a JSON Merge Patch with only the changed fields in one version-checked UPDATE. "
+                    + "The version goes in the patch or in If-Match; the new version is returned as ETag")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "User updated successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid patch",
+                    content = @Content),
+            @ApiResponse(responseCode = "404", description = "User not found",
+                    content = @Content),
+            @ApiResponse(responseCode = "409", description = "User was changed since the given version",
+                    content = @Content)
+    })
+    @PatchMapping(value = "/{id}", consumes = {MergePatchService.MEDIA_TYPE, MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<Void> patchUser(
+            @Parameter(description = "ID of the user to update", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Version the patch is based on, if it is not in the patch")
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @Parameter(description = "Changed user fields", required = true)
+            @RequestBody JsonNode body) {
+        MergePatch patch = mergePatchService.read(UserDto.class, body, ifMatch);
+        // Ключ всегда равен id, его выставляет сервер
+        patch.remove("key");
+        if (patch.has("phoneNumber") || patch.has("clientLogin")) {
+            uniquenessFilter.checkAvailable((String) patch.get("phoneNumber"), (String) patch.get("clientLogin"), id);
+        }
+        if (patch.has("clientPassword")) {
+            patch.set("clientPassword", credentialService.hash((String) patch.get("clientPassword")));
+        }
+        long version = mergePatchService.apply(UserDto.class, id, patch)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
+        uniquenessFilter.record((String) patch.get("phoneNumber"), (String) patch.get("clientLogin"));
+        if (patch.has("roleId")) {
+            roleMembershipIndex.onRoleChanged(id, (Integer) patch.get("roleId"));
+        }
+        return ResponseEntity.noContent().eTag(String.valueOf(version)).build();
+    }
+
+    @Operation(summary = "Log in", description = "Verifies user login and password")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Credentials are valid",
+                    content = {@Content(mediaType = "application/json",
+                            schema = @Schema(implementation = UserDto.class))}),
+            @ApiResponse(responseCode = "400", description = "Invalid input data",
+                    content = @Content),
+            @ApiResponse(responseCode = "401", description = "Invalid login or password",
+                    content = @Content),
+            @ApiResponse(responseCode = "503", description = "Credential service is overloaded",
+                    content = @Content)
+    })
+    @PostMapping("/login")
+    public ResponseEntity<UserDto> login(
+            @Parameter(description = "User login and password", required = true)
+            @Valid @RequestBody LoginDto loginDto) {
+        UserDto user = repository.findByClientLogin(loginDto.getClientLogin()).orElse(null);
+        String storedPassword = user != null ? user.getClientPassword() : null;
+
+        if (!credentialService.verify(loginDto.getClientPassword(), storedPassword)) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        // Старые пароли в открытом виде перехешируем при первом успешном входе
+        if (credentialService.needsRehash(storedPassword)) {
+            user.setClientPassword(credentialService.hash(loginDto.getClientPassword()));
+            user = repository.save(user);
+        }
+        return ResponseEntity.ok(user);
+    }
+
+    @Operation(summary = "Get credential service metrics",
+            description = "Returns hashing pool utilisation and hash/verify latency")
+    @ApiResponse(responseCode = "200", description = "Credential service metrics")
+    @GetMapping("/credentials/metrics")
+    public ResponseEntity<Map<String, Object>> getCredentialMetrics() {
+        return ResponseEntity.ok(credentialService.getStats());
+    }
+
     @Operation(summary = "Get user by ID", description = "Returns a single user by their ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User found",
@@ -89,11 +231,57 @@ public class UserController {
     public ResponseEntity<UserDto> getUserById(
             @Parameter(description = "ID of the user to retrieve", required = true)
             @PathVariable Long id) {
-        UserDto user = repository.findById(id)
+        UserDto user = singleFlight.findById(UserDto.class, id, repository::findById)
                 .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id));
         return ResponseEntity.ok(user);
     }
 
+    @Operation(summary = "Get users by IDs",
+            description = "Returns users in request order and lists the IDs that were not found")
+    @ApiResponse(responseCode = "200", description = "Found users and missing IDs")
+    @GetMapping(params = "ids")
+    public ResponseEntity<MultiGetDto<UserDto>> getUsersByIds(
+            @Parameter(description = "Comma-separated IDs to retrieve", required = true)
+            @RequestParam List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(repository, UserDto::getId, ids));
+    }
+
+    @Operation(summary = "Get users by IDs from request body",
+            description = "Same as GET with ids, for ID lists too long for a query string")
+    @ApiResponse(responseCode = "200", description = "Found users and missing IDs")
+    @PostMapping("/by-ids")
+    public ResponseEntity<MultiGetDto<UserDto>> getUsersByIdList(
+            @Parameter(description = "IDs to retrieve", required = true)
+            @RequestBody List<Long> ids) {
+        return ResponseEntity.ok(multiGetService.findAll(repository, UserDto::getId, ids));
+    }
+
+    @Operation(summary = "Get all users with selected fields",
+            description = "Returns only the requested fields of every user; only those columns are selected")
+    @ApiResponse(responseCode = "200", description = "Users with the requested fields")
+    @GetMapping(params = {"fields", "!ids"})
+    public ResponseEntity<List<Map<String, Object>>> getAllUsersFields(
+            @Parameter(description = "Comma-separated fields, e.g. id,firstName,surName", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findAll(UserDto.class, fields, null));
+    }
+
+    @Operation(summary = "Get user fields by ID", description = "Returns only the requested fields of a user")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "User found"),
+            @ApiResponse(responseCode = "404", description = "User not found",
+                    content = @Content)
+    })
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getUserFieldsById(
+            @Parameter(description = "ID of the user to retrieve", required = true)
+            @PathVariable Long id,
+            @Parameter(description = "Comma-separated fields, e.g. id,firstName,surName", required = true)
+            @RequestParam String fields) {
+        return ResponseEntity.ok(fieldProjectionService.findById(UserDto.class, fields, id)
+                .orElseThrow(() -> new ResourceNotFoundException("User not found with id: " + id)));
+    }
+
     @Operation(summary = "Get all users", description = "Returns a list of all users")
     @ApiResponse(responseCode = "200", description = "List of all users",
             content = {@Content(mediaType = "application/json",
@@ -113,11 +301,28 @@ public class UserController {
     public ResponseEntity<Void> deleteUser(
             @Parameter(description = "ID of the user to delete", required = true)
             @PathVariable Long id) {
-        if (!repository.existsById(id)) {
+        if (!deleteService.delete(UserDto.class, id)) {
             throw new ResourceNotFoundException("User not found with id: " + id);
         }
-
-        repository.deleteById(id);
+        roleMembershipIndex.onUserDeleted(id);
         return ResponseEntity.noContent().build();
     }
+
+    @Operation(summary = "Delete users by IDs",
+            description = "Deletes the listed users in one transaction and lists the IDs that were not found")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Number of deleted users and missing IDs"),
+            @ApiResponse(responseCode = "409",
+                    description = "Some of the users are still referenced; none were deleted",
+                    content = @Content)
+    })
+    @DeleteMapping(params = "ids")
+    public ResponseEntity<BulkDeleteDto> deleteUsersByIds(
+            @Parameter(description = "Comma-separated IDs to delete", required = true)
+            @RequestParam List<Long> ids) {
+        BulkDeleteDto result = deleteService.deleteAll(UserDto.class, ids);
+        // Для id, которых не было, это ничего не меняет
+        ids.forEach(roleMembershipIndex::onUserDeleted);
+        return ResponseEntity.ok(result);
+    }
 }
\ No newline at end of file
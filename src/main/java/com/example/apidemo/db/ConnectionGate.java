@@ -0,0 +1,102 @@
+package com.example.apidemo.db;
+
+import com.example.apidemo.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Семафор перед пулом соединений. С виртуальными потоками запросов может быть
+ * сколько угодно, а к БД одновременно пускаем не больше {@code permits}; кто не
+ * дождался разрешения за {@code maxWait}, сразу получает 503 вместо долгой очереди в пуле.
+ */
+public class ConnectionGate {
+
+    private static final String WAIT_METRIC = "db.gate.wait";
+
+    private final Semaphore permits;
+    private final int size;
+    private final long maxWaitNanos;
+    private final Timer acquiredWait;
+    private final Timer timedOutWait;
+
+    public ConnectionGate(int size, long maxWaitMillis, MeterRegistry registry) {
+        this.permits = new Semaphore(size, true);
+        this.size = size;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.acquiredWait = Timer.builder(WAIT_METRIC).tags("gate", "primary", "outcome", "SUCCESS")
+                .register(registry);
+        this.timedOutWait = Timer.builder(WAIT_METRIC).tags("gate", "primary", "outcome", "SERVER_ERROR")
+                .register(registry);
+        Gauge.builder("db.gate.queue.depth", permits, Semaphore::getQueueLength).tag("gate", "primary")
+                .register(registry);
+        Gauge.builder("db.gate.in.use", () -> this.size - permits.availablePermits()).tag("gate", "primary")
+                .register(registry);
+        Gauge.builder("db.gate.permits", () -> this.size).tag("gate", "primary").register(registry);
+    }
+
+    public DataSource wrap(DataSource target) {
+        return (DataSource) Proxy.newProxyInstance(ConnectionGate.class.getClassLoader(),
+                new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+                    if (!method.getName().equals("getConnection")) {
+                        return invoke(target, method, args);
+                    }
+                    acquire();
+                    try {
+                        return releaseOnClose((Connection) invoke(target, method, args));
+                    } catch (Throwable e) {
+                        permits.release();
+                        throw e;
+                    }
+                });
+    }
+
+    private void acquire() {
+        long start = System.nanoTime();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        }
+        long waited = System.nanoTime() - start;
+        if (!acquired) {
+            timedOutWait.record(waited, TimeUnit.NANOSECONDS);
+            throw new ServiceUnavailableException("Database is overloaded, retry later");
+        }
+        acquiredWait.record(waited, TimeUnit.NANOSECONDS);
+    }
+
+    private Connection releaseOnClose(Connection target) {
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionGate.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("close") && released.compareAndSet(false, true)) {
+                        try {
+                            return invoke(target, method, args);
+                        } finally {
+                            permits.release();
+                        }
+                    }
+                    return invoke(target, method, args);
+                });
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.apidemo.db;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(name = "app.db-gate.enabled", havingValue = "true")
+public class ConnectionGateConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionGatePostProcessor(Environment environment,
+                                                                ObjectProvider<MeterRegistry> registry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                if (!(bean instanceof DataSource dataSource)) {
+                    return bean;
+                }
+                // По умолчанию разрешений столько же, сколько соединений во всех пулах: у каждой реплики
+                // свой пул того же размера, что и у primary
+                int permits = environment.getProperty("app.db-gate.permits", Integer.class, 0);
+                if (permits <= 0) {
+                    int pools = 1;
+                    if (environment.getProperty("app.replicas.enabled", Boolean.class, false)) {
+                        pools += Binder.get(environment).bind("app.replicas.urls", Bindable.listOf(String.class))
+                                .map(List::size).orElse(0);
+                    }
+                    permits = pools
+                            * environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                }
+                long maxWaitMillis = environment.getProperty("app.db-gate.max-wait-ms", Long.class, 500L);
+                return new ConnectionGate(permits, maxWaitMillis, registry.getObject()).wrap(dataSource);
+            }
+        };
+    }
+}
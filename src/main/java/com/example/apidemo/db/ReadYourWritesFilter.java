@@ -0,0 +1,150 @@
+package com.example.apidemo.db;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.List;
+
+/**
+ * Клиент, который недавно что-то записал, читает с primary, пока реплики его не догонят.
+ * Момент последней записи хранит сам клиент: ответ на запись кладёт его в cookie и заголовок
+ * {@value #LAST_WRITE_HEADER}, поэтому проверить его может любой узел за балансировщиком.
+ * POST, которые только читают (вход, выборка по списку id), записью не считаются.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    public static final String LAST_WRITE_HEADER = "X-Last-Write";
+    public static final String LAST_WRITE_COOKIE = "last-write";
+
+    private final long windowMillis;
+    private final List<PathPattern> readOnlyPosts;
+
+    public ReadYourWritesFilter(long windowMillis, List<String> readOnlyPosts) {
+        this.windowMillis = windowMillis;
+        this.readOnlyPosts = readOnlyPosts.stream().map(PathPatternParser.defaultInstance::parse).toList();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean write = isWrite(request);
+        // Чтения внутри пишущего запроса тоже идут на primary, иначе проверки перед записью увидят старые данные
+        ReplicaRoutingDataSource.setPrimaryOnly(write || wroteRecently(request));
+        MarkOnCommit marked = write ? new MarkOnCommit(response) : null;
+        try {
+            chain.doFilter(request, write ? marked : response);
+        } finally {
+            ReplicaRoutingDataSource.setPrimaryOnly(false);
+            if (marked != null) {
+                marked.mark();
+            }
+        }
+    }
+
+    private boolean isWrite(HttpServletRequest request) {
+        String method = request.getMethod();
+        if ("GET".equals(method) || "HEAD".equals(method) || "OPTIONS".equals(method)) {
+            return false;
+        }
+        if (!"POST".equals(method)) {
+            return true;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        return readOnlyPosts.stream().noneMatch(pattern -> pattern.matches(path));
+    }
+
+    private boolean wroteRecently(HttpServletRequest request) {
+        String lastWrite = request.getHeader(LAST_WRITE_HEADER);
+        if (lastWrite == null && request.getCookies() != null) {
+            for (Cookie cookie : request.getCookies()) {
+                if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                    lastWrite = cookie.getValue();
+                }
+            }
+        }
+        if (lastWrite == null) {
+            return false;
+        }
+        try {
+            long age = System.currentTimeMillis() - Long.parseLong(lastWrite.trim());
+            // Метка из будущего больше окна — подделка или сбитые часы, её не учитываем
+            return age < windowMillis && age > -windowMillis;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Ставит метку перед первой записью тела ответа: к этому моменту транзакция контроллера
+     * уже закоммичена, и окно отсчитывается от коммита, а заголовки ещё можно менять.
+     */
+    private final class MarkOnCommit extends HttpServletResponseWrapper {
+
+        private boolean marked;
+
+        MarkOnCommit(HttpServletResponse response) {
+            super(response);
+        }
+
+        void mark() {
+            if (marked || isCommitted()) {
+                return;
+            }
+            marked = true;
+            String now = Long.toString(System.currentTimeMillis());
+            setHeader(LAST_WRITE_HEADER, now);
+            Cookie cookie = new Cookie(LAST_WRITE_COOKIE, now);
+            cookie.setPath("/api");
+            cookie.setHttpOnly(true);
+            cookie.setMaxAge((int) Math.max(1, (windowMillis + 999) / 1000));
+            addCookie(cookie);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            mark();
+            return super.getOutputStream();
+        }
+
+        @Override
+        public PrintWriter getWriter() throws IOException {
+            mark();
+            return super.getWriter();
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            mark();
+            super.flushBuffer();
+        }
+
+        @Override
+        public void sendError(int sc, String msg) throws IOException {
+            mark();
+            super.sendError(sc, msg);
+        }
+
+        @Override
+        public void sendError(int sc) throws IOException {
+            mark();
+            super.sendError(sc);
+        }
+
+        @Override
+        public void sendRedirect(String location) throws IOException {
+            mark();
+            super.sendRedirect(location);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.apidemo.db;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+@Configuration
+@ConditionalOnProperty(name = "app.replicas.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${app.replicas.read-your-writes-ms:5000}") long windowMillis,
+            @Value("${app.replicas.read-only-posts:}") List<String> readOnlyPosts) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(windowMillis, readOnlyPosts));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    @Bean
+    public static ReplicaRoutingPostProcessor replicaRoutingPostProcessor(Environment environment,
+                                                                         ObjectProvider<MeterRegistry> registry) {
+        return new ReplicaRoutingPostProcessor(environment, registry);
+    }
+
+    // Оборачивает пул Spring Boot раньше остальных обёрток DataSource, чтобы шлюз и инспектор видели и реплики
+    static class ReplicaRoutingPostProcessor implements BeanPostProcessor, Ordered, DisposableBean {
+
+        private final Environment environment;
+        private final ObjectProvider<MeterRegistry> registry;
+        private ReplicaRoutingDataSource routing;
+
+        ReplicaRoutingPostProcessor(Environment environment, ObjectProvider<MeterRegistry> registry) {
+            this.environment = environment;
+            this.registry = registry;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+            if (!(bean instanceof DataSource primary) || routing != null) {
+                return bean;
+            }
+            List<String> urls = Binder.get(environment)
+                    .bind("app.replicas.urls", Bindable.listOf(String.class))
+                    .orElseThrow(() -> new IllegalStateException("app.replicas.urls is empty"));
+            List<HikariDataSource> pools = new ArrayList<>();
+            for (int i = 0; i < urls.size(); i++) {
+                pools.add(replicaPool("replica-" + i, urls.get(i).trim()));
+            }
+            routing = new ReplicaRoutingDataSource(primary, pools,
+                    ReplicaRoutingDataSource.Balancing.valueOf(environment
+                            .getProperty("app.replicas.balancing", "round-robin")
+                            .toUpperCase(Locale.ROOT).replace('-', '_')),
+                    environment.getProperty("app.replicas.max-lag-ms", Long.class, 1000L),
+                    environment.getRequiredProperty("app.replicas.lag-query"),
+                    environment.getProperty("app.replicas.lag-check-interval-ms", Long.class, 1000L),
+                    registry.getObject());
+            return new LazyConnectionDataSourceProxy(routing);
+        }
+
+        private HikariDataSource replicaPool(String name, String url) {
+            HikariDataSource pool = new HikariDataSource();
+            // Те же настройки пула, что и у primary
+            Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(pool));
+            pool.setPoolName(name);
+            pool.setJdbcUrl(url);
+            pool.setUsername(environment.getProperty("app.replicas.username",
+                    environment.getProperty("spring.datasource.username")));
+            pool.setPassword(environment.getProperty("app.replicas.password",
+                    environment.getProperty("spring.datasource.password")));
+            pool.setReadOnly(true);
+            return pool;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.HIGHEST_PRECEDENCE;
+        }
+
+        @Override
+        public void destroy() {
+            if (routing != null) {
+                routing.close();
+            }
+        }
+    }
+}
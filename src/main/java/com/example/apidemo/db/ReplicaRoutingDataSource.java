@@ -0,0 +1,180 @@
+package com.example.apidemo.db;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Отправляет read-only транзакции на реплики, всё остальное — на primary.
+ * Реплика с отставанием больше {@code maxLagMillis} или недоступная выпадает из ротации,
+ * пока фоновая проверка не увидит её снова в норме. Если живых реплик нет, читаем с primary.
+ * Решение принимается при получении соединения, поэтому снаружи нужен
+ * LazyConnectionDataSourceProxy: к этому моменту флаг readOnly транзакции уже выставлен.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    public enum Balancing {ROUND_ROBIN, LEAST_CONNECTIONS}
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaRoutingDataSource.class);
+
+    // Выставляется на время запроса клиента, который только что писал: он должен видеть свои записи
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final List<Replica> replicas;
+    private final Balancing balancing;
+    private final long maxLagMillis;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryReads = new LongAdder();
+    private final ScheduledExecutorService monitor;
+
+    public ReplicaRoutingDataSource(DataSource primary, List<HikariDataSource> replicaPools, Balancing balancing,
+                                    long maxLagMillis, String lagQuery, long checkIntervalMillis,
+                                    MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = replicaPools.stream().map(Replica::new).toList();
+        this.balancing = balancing;
+        this.maxLagMillis = maxLagMillis;
+        this.lagQuery = lagQuery;
+
+        FunctionCounter.builder("db.routed.reads", primaryReads, LongAdder::sum).tag("target", "primary")
+                .register(registry);
+        for (Replica replica : replicas) {
+            FunctionCounter.builder("db.routed.reads", replica.reads, LongAdder::sum).tag("target", replica.name())
+                    .register(registry);
+            Gauge.builder("db.replica.lag", () -> replica.lagMillis).tag("target", replica.name())
+                    .baseUnit("milliseconds").register(registry);
+            Gauge.builder("db.replica.available", () -> replica.available ? 1 : 0).tag("target", replica.name())
+                    .register(registry);
+        }
+
+        this.monitor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkReplicas();
+        monitor.scheduleWithFixedDelay(this::checkReplicas, checkIntervalMillis, checkIntervalMillis,
+                TimeUnit.MILLISECONDS);
+    }
+
+    public static void setPrimaryOnly(boolean primaryOnly) {
+        if (primaryOnly) {
+            PRIMARY_ONLY.set(Boolean.TRUE);
+        } else {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return route().getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return route().getConnection(username, password);
+    }
+
+    private DataSource route() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return primary;
+        }
+        Replica replica = PRIMARY_ONLY.get() == null ? pickReplica() : null;
+        if (replica == null) {
+            primaryReads.increment();
+            return primary;
+        }
+        replica.reads.increment();
+        return replica.pool;
+    }
+
+    private Replica pickReplica() {
+        int size = replicas.size();
+        if (balancing == Balancing.LEAST_CONNECTIONS) {
+            Replica best = null;
+            int bestActive = Integer.MAX_VALUE;
+            for (Replica replica : replicas) {
+                int active = replica.activeConnections();
+                if (replica.available && active < bestActive) {
+                    best = replica;
+                    bestActive = active;
+                }
+            }
+            return best;
+        }
+        int start = Math.floorMod(next.getAndIncrement(), size);
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.available) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasAvailable = replica.available;
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet resultSet = statement.executeQuery(lagQuery)) {
+                long lag = resultSet.next() ? resultSet.getLong(1) : 0;
+                replica.lagMillis = lag;
+                replica.available = lag <= maxLagMillis;
+            } catch (SQLException | RuntimeException e) {
+                replica.lagMillis = -1;
+                replica.available = false;
+            }
+            if (wasAvailable != replica.available) {
+                log.warn("Replica {} is now {} (lag {} ms)", replica.name(),
+                        replica.available ? "in rotation" : "out of rotation", replica.lagMillis);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        monitor.shutdownNow();
+        for (Replica replica : replicas) {
+            replica.pool.close();
+        }
+    }
+
+    private static final class Replica {
+        final HikariDataSource pool;
+        final LongAdder reads = new LongAdder();
+        volatile long lagMillis;
+        volatile boolean available;
+
+        Replica(HikariDataSource pool) {
+            this.pool = pool;
+        }
+
+        String name() {
+            return pool.getPoolName();
+        }
+
+        int activeConnections() {
+            return pool.getHikariPoolMXBean() == null ? 0 : pool.getHikariPoolMXBean().getActiveConnections();
+        }
+    }
+}
@@ -3,9 +3,13 @@ package com.example.apidemo.dto;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "brand")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "brand")
 public class BrandDto {
 
     @Id
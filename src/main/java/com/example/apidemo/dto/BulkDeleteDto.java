@@ -0,0 +1,23 @@
+package com.example.apidemo.dto;
+
+import java.util.List;
+
+// Итог массового удаления: сколько строк удалено и какие из запрошенных id не нашлись
+public class BulkDeleteDto {
+
+    private final long deleted;
+    private final List<Long> missingIds;
+
+    public BulkDeleteDto(long deleted, List<Long> missingIds) {
+        this.deleted = deleted;
+        this.missingIds = missingIds;
+    }
+
+    public long getDeleted() {
+        return deleted;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,23 @@
+package com.example.apidemo.dto;
+
+import java.util.List;
+
+// Порция ленты изменений и курсор, с которым запрашивать следующую
+public class ChangeFeedDto {
+
+    private final List<ChangeRecordDto> changes;
+    private final long next;
+
+    public ChangeFeedDto(List<ChangeRecordDto> changes, long next) {
+        this.changes = changes;
+        this.next = next;
+    }
+
+    public List<ChangeRecordDto> getChanges() {
+        return changes;
+    }
+
+    public long getNext() {
+        return next;
+    }
+}
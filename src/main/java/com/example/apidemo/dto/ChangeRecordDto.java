@@ -0,0 +1,57 @@
+package com.example.apidemo.dto;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDateTime;
+
+// Запись outbox: одна строка на изменённую сущность, id растёт в порядке коммитов
+@Entity
+@Immutable
+@Table(name = "outbox")
+public class ChangeRecordDto {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "id")
+    private Long id;
+
+    @Column(name = "entity", nullable = false)
+    private String entity;
+
+    @Column(name = "entityid", nullable = false)
+    private Long entityId;
+
+    @Column(name = "version", nullable = false)
+    private Long version;
+
+    @Column(name = "operation", nullable = false)
+    private String operation;
+
+    @Column(name = "changedat", nullable = false)
+    private LocalDateTime changedAt;
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getEntity() {
+        return entity;
+    }
+
+    public Long getEntityId() {
+        return entityId;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public String getOperation() {
+        return operation;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.apidemo.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+public class LoginDto {
+
+    @NotBlank(message = "Login is required")
+    private String clientLogin;
+
+    @NotBlank(message = "Password is required")
+    private String clientPassword;
+
+    // Конструкторы
+    public LoginDto() {
+    }
+
+    public LoginDto(String clientLogin, String clientPassword) {
+        this.clientLogin = clientLogin;
+        this.clientPassword = clientPassword;
+    }
+
+    // Геттеры и сеттеры
+    public String getClientLogin() {
+        return clientLogin;
+    }
+
+    public void setClientLogin(String clientLogin) {
+        this.clientLogin = clientLogin;
+    }
+
+    public String getClientPassword() {
+        return clientPassword;
+    }
+
+    public void setClientPassword(String clientPassword) {
+        this.clientPassword = clientPassword;
+    }
+}
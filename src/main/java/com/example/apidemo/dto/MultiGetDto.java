@@ -0,0 +1,23 @@
+package com.example.apidemo.dto;
+
+import java.util.List;
+
+// Ответ мульти-запроса: найденные сущности в порядке запрошенных id и id, которых нет
+public class MultiGetDto<T> {
+
+    private final List<T> items;
+    private final List<Long> missingIds;
+
+    public MultiGetDto(List<T> items, List<Long> missingIds) {
+        this.items = items;
+        this.missingIds = missingIds;
+    }
+
+    public List<T> getItems() {
+        return items;
+    }
+
+    public List<Long> getMissingIds() {
+        return missingIds;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,42 @@
+package com.example.apidemo.dto;
+
+import java.util.List;
+
+// Страница результатов поиска по отзывам, от самых релевантных к менее релевантным.
+// truncated: совпадений больше, чем ранжируется, и часть из них в выдачу не попадёт
+public class ReviewSearchDto {
+
+    private final List<ReviewDto> reviews;
+    private final int page;
+    private final int size;
+    private final boolean hasMore;
+    private final boolean truncated;
+
+    public ReviewSearchDto(List<ReviewDto> reviews, int page, int size, boolean hasMore, boolean truncated) {
+        this.reviews = reviews;
+        this.page = page;
+        this.size = size;
+        this.hasMore = hasMore;
+        this.truncated = truncated;
+    }
+
+    public List<ReviewDto> getReviews() {
+        return reviews;
+    }
+
+    public int getPage() {
+        return page;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+
+    public boolean isTruncated() {
+        return truncated;
+    }
+}
\ No newline at end of file
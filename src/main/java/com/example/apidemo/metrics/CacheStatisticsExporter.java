@@ -0,0 +1,42 @@
+package com.example.apidemo.metrics;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.function.ToLongFunction;
+
+// Публикует статистику регионов второго уровня Hibernate в реестр Micrometer
+@Component
+public class CacheStatisticsExporter {
+
+    @Autowired
+    public CacheStatisticsExporter(EntityManagerFactory entityManagerFactory, MeterRegistry registry) {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        if (!statistics.isStatisticsEnabled()) {
+            return;
+        }
+        for (String region : statistics.getSecondLevelCacheRegionNames()) {
+            register(registry, statistics, region, "hibernate.cache.hits", CacheRegionStatistics::getHitCount);
+            register(registry, statistics, region, "hibernate.cache.misses", CacheRegionStatistics::getMissCount);
+            register(registry, statistics, region, "hibernate.cache.puts", CacheRegionStatistics::getPutCount);
+        }
+        FunctionCounter.builder("hibernate.statements.prepared", statistics, Statistics::getPrepareStatementCount)
+                .register(registry);
+    }
+
+    private static void register(MeterRegistry registry, Statistics statistics, String region,
+                                 String metric, ToLongFunction<CacheRegionStatistics> value) {
+        FunctionCounter.builder(metric, statistics, s -> {
+                    CacheRegionStatistics regionStatistics = s.getCacheRegionStatistics(region);
+                    return regionStatistics == null ? 0 : value.applyAsLong(regionStatistics);
+                })
+                .tag("region", region)
+                .register(registry);
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.apidemo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.domain.Slice;
+
+import java.util.Collection;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Таймеры Micrometer одного эндпоинта или метода репозитория с тегами outcome и size.
+ * Таймер каждой комбинации регистрируется в реестре один раз и дальше берётся из массива,
+ * так что запись — индекс и {@link Timer#record}, без поиска по имени и тегам.
+ */
+public final class OutcomeTimers {
+
+    public static final String HTTP_METRIC = "http.server.requests";
+    public static final String REPOSITORY_METRIC = "repository.invocations";
+
+    private static final String[] SIZE_TAGS = {"none", "0", "1", "2-10", "11-100", "101-1000", "1000+"};
+
+    public enum Outcome {SUCCESS, CLIENT_ERROR, SERVER_ERROR}
+
+    private final MeterRegistry registry;
+    private final String name;
+    private final Tags tags;
+    private final AtomicReferenceArray<Timer> timers =
+            new AtomicReferenceArray<>(Outcome.values().length * SIZE_TAGS.length);
+
+    public OutcomeTimers(MeterRegistry registry, String name, Tags tags) {
+        this.registry = registry;
+        this.name = name;
+        this.tags = tags;
+    }
+
+    public void record(Outcome outcome, int sizeBucket, long nanos) {
+        int index = outcome.ordinal() * SIZE_TAGS.length + sizeBucket;
+        Timer timer = timers.get(index);
+        if (timer == null) {
+            // Повторная регистрация вернёт тот же таймер, поэтому гонка здесь безвредна
+            timer = Timer.builder(name)
+                    .tags(tags)
+                    .tag("outcome", outcome.name())
+                    .tag("size", SIZE_TAGS[sizeBucket])
+                    .register(registry);
+            timers.set(index, timer);
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public static int sizeBucket(Object result) {
+        int size;
+        if (result instanceof Collection<?> collection) {
+            size = collection.size();
+        } else if (result instanceof Optional<?> optional) {
+            size = optional.isPresent() ? 1 : 0;
+        } else if (result instanceof Slice<?> slice) {
+            size = slice.getNumberOfElements();
+        } else {
+            return 0;
+        }
+        return sizeBucket(size);
+    }
+
+    public static int sizeBucket(int size) {
+        if (size <= 1) {
+            return size + 1;
+        }
+        return size <= 10 ? 3 : size <= 100 ? 4 : size <= 1000 ? 5 : 6;
+    }
+}
\ No newline at end of file
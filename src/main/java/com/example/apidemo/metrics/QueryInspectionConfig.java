@@ -0,0 +1,37 @@
+package com.example.apidemo.metrics;
+
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@ConditionalOnProperty(name = "app.queries.inspection-enabled", havingValue = "true", matchIfMissing = true)
+public class QueryInspectionConfig {
+
+    @Bean
+    public FilterRegistrationBean<QueryInspectionFilter> queryInspectionFilter(QueryInspector inspector) {
+        FilterRegistrationBean<QueryInspectionFilter> registration =
+                new FilterRegistrationBean<>(new QueryInspectionFilter(inspector));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+
+    // Оборачивает пул соединений, чтобы видеть каждый выполняемый SQL
+    @Bean
+    public static BeanPostProcessor inspectingDataSourcePostProcessor(ObjectProvider<QueryInspector> inspector) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
+                return bean instanceof DataSource dataSource
+                        ? InspectingDataSource.wrap(dataSource, inspector.getObject())
+                        : bean;
+            }
+        };
+    }
+}
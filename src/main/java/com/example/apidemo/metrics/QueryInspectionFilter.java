@@ -0,0 +1,30 @@
+package com.example.apidemo.metrics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// Открывает и закрывает счётчик SQL на время HTTP-запроса
+public class QueryInspectionFilter extends OncePerRequestFilter {
+
+    private final QueryInspector inspector;
+
+    public QueryInspectionFilter(QueryInspector inspector) {
+        this.inspector = inspector;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        inspector.beginRequest(request.getMethod() + " " + request.getRequestURI());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            inspector.endRequest();
+        }
+    }
+}
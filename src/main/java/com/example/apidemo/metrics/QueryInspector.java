@@ -0,0 +1,134 @@
+package com.example.apidemo.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Учёт SQL-запросов в рамках HTTP-запроса вместо spring.jpa.show-sql.
+ * Логируются только медленные запросы и HTTP-запросы с подозрением на N+1
+ * (число запросов выше порога); последние из них лежат в кольцевых буферах.
+ */
+@Component
+public class QueryInspector {
+
+    private static final Logger log = LoggerFactory.getLogger(QueryInspector.class);
+    private static final int MAX_DISTINCT_STATEMENTS = 64;
+    private static final ThreadLocal<RequestQueries> CURRENT = new ThreadLocal<>();
+
+    private final long slowNanos;
+    private final int maxQueriesPerRequest;
+    private final RingBuffer<SlowQuery> slowQueries;
+    private final RingBuffer<FlaggedRequest> flaggedRequests;
+
+    public QueryInspector(@Value("${app.queries.slow-threshold-ms:200}") long slowThresholdMillis,
+                          @Value("${app.queries.max-per-request:20}") int maxQueriesPerRequest,
+                          @Value("${app.queries.buffer-size:256}") int bufferSize) {
+        this.slowNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+        this.maxQueriesPerRequest = maxQueriesPerRequest;
+        this.slowQueries = new RingBuffer<>(bufferSize);
+        this.flaggedRequests = new RingBuffer<>(bufferSize);
+    }
+
+    public void beginRequest(String path) {
+        CURRENT.set(new RequestQueries(path));
+    }
+
+    public void endRequest() {
+        RequestQueries request = CURRENT.get();
+        CURRENT.remove();
+        if (request == null || request.count <= maxQueriesPerRequest) {
+            return;
+        }
+        List<Map.Entry<String, Integer>> repeated = new ArrayList<>(request.statements.entrySet());
+        repeated.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        Map<String, Integer> top = new LinkedHashMap<>();
+        repeated.stream().limit(5).forEach(e -> top.put(e.getKey(), e.getValue()));
+
+        FlaggedRequest flagged = new FlaggedRequest(Instant.now(), request.path, request.count,
+                request.jdbcNanos / 1e6, top);
+        flaggedRequests.add(flagged);
+        log.warn("Possible N+1: {} executed {} statements ({} ms JDBC), most repeated: {}",
+                request.path, request.count, String.format("%.1f", flagged.jdbcMillis()), top);
+    }
+
+    public void onStatement(String sql, long nanos) {
+        RequestQueries request = CURRENT.get();
+        if (request != null) {
+            request.record(sql, nanos);
+        }
+        if (nanos >= slowNanos) {
+            String path = request != null ? request.path : "-";
+            slowQueries.add(new SlowQuery(Instant.now(), path, sql, nanos / 1e6));
+            log.warn("Slow query ({} ms) on {}: {}", String.format("%.1f", nanos / 1e6), path, sql);
+        }
+    }
+
+    public List<SlowQuery> getSlowQueries() {
+        return slowQueries.snapshot();
+    }
+
+    public List<FlaggedRequest> getFlaggedRequests() {
+        return flaggedRequests.snapshot();
+    }
+
+    public record SlowQuery(Instant timestamp, String path, String sql, double millis) {
+    }
+
+    public record FlaggedRequest(Instant timestamp, String path, int statements, double jdbcMillis,
+                                 Map<String, Integer> mostRepeated) {
+    }
+
+    private static final class RequestQueries {
+        private final String path;
+        private final Map<String, Integer> statements = new HashMap<>();
+        private int count;
+        private long jdbcNanos;
+
+        RequestQueries(String path) {
+            this.path = path;
+        }
+
+        void record(String sql, long nanos) {
+            count++;
+            jdbcNanos += nanos;
+            if (statements.size() < MAX_DISTINCT_STATEMENTS || statements.containsKey(sql)) {
+                statements.merge(sql, 1, Integer::sum);
+            }
+        }
+    }
+
+    // Последние N элементов без блокировок на записи
+    private static final class RingBuffer<T> {
+        private final AtomicReferenceArray<T> items;
+        private final AtomicLong next = new AtomicLong();
+
+        RingBuffer(int size) {
+            this.items = new AtomicReferenceArray<>(Math.max(1, size));
+        }
+
+        void add(T item) {
+            items.set((int) (next.getAndIncrement() % items.length()), item);
+        }
+
+        List<T> snapshot() {
+            long end = next.get();
+            long start = Math.max(0, end - items.length());
+            List<T> result = new ArrayList<>((int) (end - start));
+            for (long i = end - 1; i >= start; i--) {
+                T item = items.get((int) (i % items.length()));
+                if (item != null) {
+                    result.add(item);
+                }
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.apidemo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Время каждого вызова метода Spring Data репозитория, включая унаследованные findById/save
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private final MeterRegistry registry;
+    private final String repositoryName;
+    private final ConcurrentMap<Method, OutcomeTimers> timers = new ConcurrentHashMap<>();
+
+    public RepositoryMetricsInterceptor(MeterRegistry registry, String repositoryName) {
+        this.registry = registry;
+        this.repositoryName = repositoryName;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        Method method = invocation.getMethod();
+        OutcomeTimers methodTimers = timers.get(method);
+        if (methodTimers == null) {
+            methodTimers = timers.computeIfAbsent(method, m -> new OutcomeTimers(registry,
+                    OutcomeTimers.REPOSITORY_METRIC, Tags.of("repository", repositoryName, "method", m.getName())));
+        }
+        long start = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            methodTimers.record(OutcomeTimers.Outcome.SUCCESS, OutcomeTimers.sizeBucket(result),
+                    System.nanoTime() - start);
+            return result;
+        } catch (Throwable e) {
+            methodTimers.record(OutcomeTimers.Outcome.SERVER_ERROR, 0, System.nanoTime() - start);
+            throw e;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,52 @@
+package com.example.apidemo.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Время обработки каждого метода контроллера с тегами исхода и размера ответа
+public class RequestMetricsInterceptor implements HandlerInterceptor {
+
+    static final String RESULT_SIZE_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".resultSize";
+    private static final String START_ATTRIBUTE = RequestMetricsInterceptor.class.getName() + ".start";
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<Method, OutcomeTimers> timers = new ConcurrentHashMap<>();
+
+    public RequestMetricsInterceptor(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response,
+                                Object handler, Exception ex) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (!(handler instanceof HandlerMethod handlerMethod) || start == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - (Long) start;
+
+        int status = response.getStatus();
+        OutcomeTimers.Outcome outcome = ex != null || status >= 500 ? OutcomeTimers.Outcome.SERVER_ERROR
+                : status >= 400 ? OutcomeTimers.Outcome.CLIENT_ERROR
+                : OutcomeTimers.Outcome.SUCCESS;
+        Object size = request.getAttribute(RESULT_SIZE_ATTRIBUTE);
+
+        timers.computeIfAbsent(handlerMethod.getMethod(), method -> new OutcomeTimers(registry, OutcomeTimers.HTTP_METRIC,
+                        Tags.of("handler", handlerMethod.getBeanType().getSimpleName() + "." + method.getName())))
+                .record(outcome, size != null ? (Integer) size : 0, nanos);
+    }
+}
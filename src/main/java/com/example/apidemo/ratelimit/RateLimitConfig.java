@@ -0,0 +1,42 @@
+package com.example.apidemo.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(name = "app.rate-limit.enabled", havingValue = "true")
+public class RateLimitConfig {
+
+    @Bean
+    public RateLimiter rateLimiter(@Value("${app.rate-limit.standard.per-second:200}") double standardPerSecond,
+                                   @Value("${app.rate-limit.standard.burst:400}") int standardBurst,
+                                   @Value("${app.rate-limit.expensive.per-second:5}") double expensivePerSecond,
+                                   @Value("${app.rate-limit.expensive.burst:20}") int expensiveBurst,
+                                   @Value("${app.rate-limit.max-clients:100000}") int maxClients,
+                                   @Value("${app.rate-limit.max-keys-per-address:8}") int maxKeysPerAddress,
+                                   MeterRegistry registry) {
+        return new RateLimiter(standardPerSecond, standardBurst, expensivePerSecond, expensiveBurst, maxClients,
+                maxKeysPerAddress, registry);
+    }
+
+    // Раньше остальных фильтров: отклонённый запрос не должен тратить ничего, кроме проверки ведра
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(
+            RateLimiter rateLimiter,
+            @Value("${app.rate-limit.client-header:X-Api-Key}") String clientHeader,
+            @Value("${app.rate-limit.api-keys:}") List<String> apiKeys,
+            @Value("${app.rate-limit.expensive-paths}") List<String> expensivePaths) {
+        FilterRegistrationBean<RateLimitFilter> registration = new FilterRegistrationBean<>(
+                new RateLimitFilter(rateLimiter, clientHeader, apiKeys, expensivePaths));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+}
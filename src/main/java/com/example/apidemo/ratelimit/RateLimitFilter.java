@@ -0,0 +1,77 @@
+package com.example.apidemo.ratelimit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ограничивает частоту запросов клиента, ключ — заголовок с API-ключом или адрес.
+ * Ключ учитывается, только если он есть среди настроенных: иначе, меняя ключ, клиент
+ * получал бы новое ведро на каждый запрос.
+ * GET по дорогим путям (списки без ограничений, выборки по диапазону дат) расходуют отдельный,
+ * меньший бюджет, чтобы выгрузка таблиц не съедала лимит на дешёвые запросы по id.
+ * Превышение — 429 с Retry-After в секундах.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private final RateLimiter limiter;
+    private final String clientHeader;
+    private final Set<String> apiKeys;
+    private final List<PathPattern> expensivePaths;
+
+    public RateLimitFilter(RateLimiter limiter, String clientHeader, Collection<String> apiKeys,
+                           List<String> expensivePaths) {
+        this.limiter = limiter;
+        this.clientHeader = clientHeader;
+        this.apiKeys = Set.copyOf(apiKeys);
+        this.expensivePaths = expensivePaths.stream().map(PathPatternParser.defaultInstance::parse).toList();
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long now = System.nanoTime();
+        long wait = limiter.tryAcquire(clientKey(request, now), budget(request), now);
+        if (wait > 0) {
+            long seconds = Math.max(1, (wait + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(seconds));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Rate limit exceeded, retry in " + seconds + " s");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private RateLimiter.Budget budget(HttpServletRequest request) {
+        if (!"GET".equals(request.getMethod())) {
+            return RateLimiter.Budget.STANDARD;
+        }
+        PathContainer path = PathContainer.parsePath(request.getRequestURI());
+        for (PathPattern pattern : expensivePaths) {
+            if (pattern.matches(path)) {
+                // Мульти-запрос по списку id ограничен сверху и дорогим не считается
+                return request.getParameter("ids") == null ? RateLimiter.Budget.EXPENSIVE : RateLimiter.Budget.STANDARD;
+            }
+        }
+        return RateLimiter.Budget.STANDARD;
+    }
+
+    private String clientKey(HttpServletRequest request, long now) {
+        String key = request.getHeader(clientHeader);
+        return key != null && apiKeys.contains(key)
+                ? limiter.keyClient(request.getRemoteAddr(), key, now)
+                : request.getRemoteAddr();
+    }
+}
@@ -0,0 +1,187 @@
+package com.example.apidemo.ratelimit;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Token bucket на клиента и класс запросов без блокировок. Ведро хранится одним числом —
+ * моментом, когда оно снова станет полным (GCRA): запрос сдвигает его на интервал
+ * между токенами одним CAS, если после сдвига запас не превышает размера всплеска.
+ * Полное ведро неотличимо от нового, поэтому при переполнении таблицы выбрасывается
+ * самый долго простаивающий клиент из небольшой выборки — так лимиты почти не страдают,
+ * а вставка не обходит всю таблицу.
+ */
+public class RateLimiter {
+
+    public enum Budget {STANDARD, EXPENSIVE}
+
+    private static final Budget[] BUDGETS = Budget.values();
+    private static final int EVICTION_SAMPLE = 8;
+    private static final String KEY_PREFIX = "key:";
+
+    private static final class Client {
+        final AtomicLongArray buckets = new AtomicLongArray(BUDGETS.length);
+        // Ключи, с которыми приходили с этого адреса
+        private String[] keys = new String[0];
+
+        synchronized boolean admit(String key, int maxKeys) {
+            for (String known : keys) {
+                if (known.equals(key)) {
+                    return true;
+                }
+            }
+            if (keys.length >= maxKeys) {
+                return false;
+            }
+            keys = Arrays.copyOf(keys, keys.length + 1);
+            keys[keys.length - 1] = key;
+            return true;
+        }
+    }
+
+    private final long[] intervalNanos = new long[BUDGETS.length];
+    private final long[] burstNanos = new long[BUDGETS.length];
+    private final int maxClients;
+    private final int maxKeysPerAddress;
+    // Время считается от создания лимитера: нулевое ведро тогда заведомо полное
+    private final long origin = System.nanoTime();
+    private final ConcurrentHashMap<String, Client> clients = new ConcurrentHashMap<>();
+    private final AtomicBoolean evicting = new AtomicBoolean();
+    // Курсор выборки переживает вызовы: каждое вытеснение продолжает обход с того места, где остановилось
+    private Iterator<Map.Entry<String, Client>> sweep;
+    private final LongAdder[] allowed = new LongAdder[BUDGETS.length];
+    private final LongAdder[] rejected = new LongAdder[BUDGETS.length];
+
+    public RateLimiter(double standardPerSecond, int standardBurst, double expensivePerSecond, int expensiveBurst,
+                       int maxClients, int maxKeysPerAddress, MeterRegistry registry) {
+        configure(Budget.STANDARD, standardPerSecond, standardBurst);
+        configure(Budget.EXPENSIVE, expensivePerSecond, expensiveBurst);
+        this.maxClients = maxClients;
+        this.maxKeysPerAddress = maxKeysPerAddress;
+        for (Budget budget : BUDGETS) {
+            int i = budget.ordinal();
+            allowed[i] = new LongAdder();
+            rejected[i] = new LongAdder();
+            String tag = budget.name().toLowerCase();
+            FunctionCounter.builder("rate.limit.allowed", allowed[i], LongAdder::sum).tag("budget", tag)
+                    .register(registry);
+            FunctionCounter.builder("rate.limit.rejected", rejected[i], LongAdder::sum).tag("budget", tag)
+                    .register(registry);
+        }
+        Gauge.builder("rate.limit.clients", clients, ConcurrentHashMap::size).register(registry);
+    }
+
+    private void configure(Budget budget, double perSecond, int burst) {
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / perSecond);
+        intervalNanos[budget.ordinal()] = interval;
+        burstNanos[budget.ordinal()] = interval * Math.max(burst - 1, 0);
+    }
+
+    /**
+     * Клиент для запроса с проверенным API-ключом: свой ключ, пока с адреса пришло не больше
+     * maxKeysPerAddress разных ключей, дальше — общий бюджет адреса.
+     */
+    public String keyClient(String address, String key, long nanoTime) {
+        return client(address, nanoTime - origin).admit(key, maxKeysPerAddress) ? KEY_PREFIX + key : address;
+    }
+
+    // 0 — запрос пропущен, иначе через сколько наносекунд появится токен; nanoTime — System.nanoTime()
+    public long tryAcquire(String client, Budget budget, long nanoTime) {
+        long now = nanoTime - origin;
+        AtomicLongArray buckets = client(client, now).buckets;
+        int i = budget.ordinal();
+        long interval = intervalNanos[i];
+        long burst = burstNanos[i];
+        while (true) {
+            long full = buckets.get(i);
+            // Ведро полное или ещё ни разу не использовано
+            long start = full - now < 0 ? now : full;
+            long next = start + interval;
+            long wait = next - now - burst - interval;
+            if (wait > 0) {
+                rejected[i].increment();
+                return wait;
+            }
+            if (buckets.compareAndSet(i, full, next)) {
+                allowed[i].increment();
+                return 0;
+            }
+        }
+    }
+
+    public int clientCount() {
+        return clients.size();
+    }
+
+    private Client client(String name, long now) {
+        Client client = clients.get(name);
+        if (client == null) {
+            client = clients.computeIfAbsent(name, c -> new Client());
+            if (clients.size() > maxClients) {
+                evictIdle(now);
+            }
+        }
+        return client;
+    }
+
+    // Чистит один поток, за вставку — несколько выборок, а не вся таблица; остальные потоки не ждут
+    private void evictIdle(long now) {
+        if (!evicting.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            while (clients.size() > maxClients) {
+                evictOne(now);
+            }
+        } finally {
+            evicting.set(false);
+        }
+    }
+
+    // Из очередных EVICTION_SAMPLE записей убирает ту, чьё ведро раньше всех стало или станет полным
+    private void evictOne(long now) {
+        Map.Entry<String, Client> victim = null;
+        long victimFull = Long.MAX_VALUE;
+        for (int seen = 0; seen < EVICTION_SAMPLE; seen++) {
+            if (sweep == null || !sweep.hasNext()) {
+                sweep = clients.entrySet().iterator();
+                if (!sweep.hasNext()) {
+                    return;
+                }
+            }
+            Map.Entry<String, Client> candidate = sweep.next();
+            long full = fullAt(candidate.getValue().buckets, now);
+            if (full - now <= 0) {
+                // Полное ведро ничего не помнит, убрать его бесплатно
+                clients.remove(candidate.getKey(), candidate.getValue());
+                return;
+            }
+            if (victim == null || full - victimFull < 0) {
+                victim = candidate;
+                victimFull = full;
+            }
+        }
+        clients.remove(victim.getKey(), victim.getValue());
+    }
+
+    private static long fullAt(AtomicLongArray buckets, long now) {
+        long latest = now;
+        for (int i = 0; i < buckets.length(); i++) {
+            long full = buckets.get(i);
+            if (full - latest > 0) {
+                latest = full;
+            }
+        }
+        return latest;
+    }
+}
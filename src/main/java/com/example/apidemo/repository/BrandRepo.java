@@ -1,9 +1,12 @@
 package com.example.apidemo.repository;
 
 import com.example.apidemo.dto.BrandDto;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface BrandRepo extends JpaRepository<BrandDto, Long> {
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     BrandDto findByBrandTitle(String brandTitle);
     boolean existsByBrandTitle(String brandTitle);
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.example.apidemo.repository;
 
 import com.example.apidemo.dto.CategoryDto;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface CategoryRepo extends JpaRepository<CategoryDto, Long> {
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     CategoryDto findByCategoryTitle(String categoryTitle);
     boolean existsByCategoryTitle(String categoryTitle);
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.example.apidemo.repository;
+
+import com.example.apidemo.dto.ChangeRecordDto;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+public interface ChangeRecordRepo extends JpaRepository<ChangeRecordDto, Long> {
+    @Query("SELECT c FROM ChangeRecordDto c WHERE c.id > :afterId ORDER BY c.id")
+    List<ChangeRecordDto> findPageAfter(@Param("afterId") Long afterId, Pageable page);
+}
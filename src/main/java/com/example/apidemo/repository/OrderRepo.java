@@ -14,6 +14,9 @@ public interface OrderRepo extends JpaRepository<OrderDto, Long> {
 
     List<OrderDto> findByStatus(String status);
 
+    @Query("SELECT o.id FROM OrderDto o WHERE o.status = :status ORDER BY o.id")
+    List<Long> findIdsByStatus(@Param("status") String status);
+
     @Query("SELECT o FROM OrderDto o WHERE o.orderDate BETWEEN :startDate AND :endDate")
     List<OrderDto> findByOrderDateBetween(
             @Param("startDate") LocalDate startDate,
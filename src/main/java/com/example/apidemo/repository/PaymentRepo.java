@@ -19,4 +19,7 @@ public interface PaymentRepo extends JpaRepository<PaymentDto, Long> {
 
     @Query("SELECT p FROM PaymentDto p WHERE p.paymentMethod = :method")
     List<PaymentDto> findByPaymentMethod(@Param("method") String method);
+
+    @Query("SELECT p.id FROM PaymentDto p WHERE p.paymentMethod = :method ORDER BY p.id")
+    List<Long> findIdsByPaymentMethod(@Param("method") String method);
 }
\ No newline at end of file
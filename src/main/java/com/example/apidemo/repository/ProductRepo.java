@@ -1,20 +1,53 @@
 package com.example.apidemo.repository;
 
 import com.example.apidemo.dto.ProductDto;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface ProductRepo extends JpaRepository<ProductDto, Long> {
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<ProductDto> findByProductTitleContainingIgnoreCase(String productTitle);
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<ProductDto> findByBrand_Id(Long brandId);
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<ProductDto> findByCategory_Id(Long categoryId);
 
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     @Query("SELECT p FROM ProductDto p WHERE p.price BETWEEN :minPrice AND :maxPrice")
     List<ProductDto> findByPriceRange(@Param("minPrice") Integer minPrice,
                                       @Param("maxPrice") Integer maxPrice);
 
     boolean existsByProductTitle(String productTitle);
+
+    // Keyset-страницы для потоковой выдачи: бренд и категория подтягиваются тем же запросом
+    @Query("SELECT p FROM ProductDto p JOIN FETCH p.brand JOIN FETCH p.category " +
+            "WHERE p.id > :afterId ORDER BY p.id")
+    List<ProductDto> findPageAfter(@Param("afterId") Long afterId, Pageable page);
+
+    @Query("SELECT p FROM ProductDto p JOIN FETCH p.brand JOIN FETCH p.category " +
+            "WHERE p.id > :afterId AND UPPER(p.productTitle) LIKE UPPER(CONCAT('%', :title, '%')) ORDER BY p.id")
+    List<ProductDto> findPageByTitleAfter(@Param("title") String title, @Param("afterId") Long afterId,
+                                          Pageable page);
+
+    @Query("SELECT p FROM ProductDto p JOIN FETCH p.brand JOIN FETCH p.category " +
+            "WHERE p.id > :afterId AND p.brand.id = :brandId ORDER BY p.id")
+    List<ProductDto> findPageByBrandAfter(@Param("brandId") Long brandId, @Param("afterId") Long afterId,
+                                          Pageable page);
+
+    @Query("SELECT p FROM ProductDto p JOIN FETCH p.brand JOIN FETCH p.category " +
+            "WHERE p.id > :afterId AND p.category.id = :categoryId ORDER BY p.id")
+    List<ProductDto> findPageByCategoryAfter(@Param("categoryId") Long categoryId, @Param("afterId") Long afterId,
+                                             Pageable page);
+
+    @Query("SELECT p FROM ProductDto p JOIN FETCH p.brand JOIN FETCH p.category " +
+            "WHERE p.id > :afterId AND p.price BETWEEN :minPrice AND :maxPrice ORDER BY p.id")
+    List<ProductDto> findPageByPriceRangeAfter(@Param("minPrice") Integer minPrice,
+                                               @Param("maxPrice") Integer maxPrice,
+                                               @Param("afterId") Long afterId, Pageable page);
 }
\ No newline at end of file
@@ -1,9 +1,12 @@
 package com.example.apidemo.repository;
 
 import com.example.apidemo.dto.RolesDto;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 
 public interface RolesRepo extends JpaRepository<RolesDto, Long> {
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     RolesDto findByCharacterTitle(String characterTitle);
     boolean existsByCharacterTitle(String characterTitle);
 }
\ No newline at end of file
@@ -1,14 +1,33 @@
 package com.example.apidemo.repository;
 
 import com.example.apidemo.dto.UserDto;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface UserRepo extends JpaRepository<UserDto, Long> {
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     Optional<UserDto> findByPhoneNumber(String phoneNumber);
     boolean existsByPhoneNumber(String phoneNumber);
     boolean existsByClientLogin(String clientLogin);
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
+    Optional<UserDto> findByClientLogin(String clientLogin);
+    @QueryHints(@QueryHint(name = "org.hibernate.cacheable", value = "true"))
     List<UserDto> findByRoleId(Integer roleId);
+
+    @Query("SELECT u.id FROM UserDto u WHERE u.roleId = :roleId")
+    List<Long> findIdsByRoleId(@Param("roleId") Integer roleId);
+
+    // Проверка всех уникальных полей одним запросом
+    List<UserDto> findByPhoneNumberOrClientLogin(String phoneNumber, String clientLogin);
+
+    @QueryHints(@QueryHint(name = "org.hibernate.fetchSize", value = "1000"))
+    @Query("SELECT u.phoneNumber, u.clientLogin FROM UserDto u")
+    Stream<Object[]> streamUniqueKeys();
 }
\ No newline at end of file
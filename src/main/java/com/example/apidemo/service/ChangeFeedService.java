@@ -0,0 +1,110 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.dto.ChangeFeedDto;
+import com.example.apidemo.dto.ChangeRecordDto;
+import com.example.apidemo.repository.ChangeRecordRepo;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Лента изменений из outbox по курсору: {@code after} — id последней полученной записи.
+ * Long-poll не держит поток Tomcat: ожидающие запросы лежат в списке и завершаются,
+ * когда коммит на этом узле (или уведомление шины от другого) сообщает о новых записях.
+ * Раз в {@code recheckMillis} лента перечитывается и без сигнала — на случай записей с других узлов.
+ */
+@Service
+public class ChangeFeedService {
+
+    private record Waiter(long after, int limit, DeferredResult<ChangeFeedDto> result) {
+    }
+
+    private final ChangeRecordRepo repository;
+    private final Set<Waiter> waiters = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean wakeScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService executor;
+
+    public ChangeFeedService(ChangeRecordRepo repository,
+                             @Value("${app.changes.recheck-ms:1000}") long recheckMillis,
+                             MeterRegistry registry) {
+        this.repository = repository;
+        this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "change-feed");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::wake, recheckMillis, recheckMillis, TimeUnit.MILLISECONDS);
+        Gauge.builder("change.feed.waiting", waiters, Set::size).register(registry);
+    }
+
+    public ChangeFeedDto read(long after, int limit) {
+        List<ChangeRecordDto> changes = repository.findPageAfter(after, PageRequest.ofSize(limit));
+        long next = changes.isEmpty() ? after : changes.get(changes.size() - 1).getId();
+        return new ChangeFeedDto(changes, next);
+    }
+
+    public DeferredResult<ChangeFeedDto> poll(long after, int limit, long waitMillis) {
+        if (waitMillis <= 0) {
+            DeferredResult<ChangeFeedDto> result = new DeferredResult<>();
+            result.setResult(read(after, limit));
+            return result;
+        }
+        DeferredResult<ChangeFeedDto> result = new DeferredResult<>(waitMillis,
+                () -> new ChangeFeedDto(List.of(), after));
+        Waiter waiter = new Waiter(after, limit, result);
+        result.onCompletion(() -> waiters.remove(waiter));
+        // Сначала регистрируемся, потом читаем: коммит между чтением и регистрацией не потеряется
+        waiters.add(waiter);
+        ChangeFeedDto current = read(after, limit);
+        if (!current.getChanges().isEmpty()) {
+            result.setResult(current);
+        }
+        return result;
+    }
+
+    // Вызывается после коммита; несколько сигналов подряд схлопываются в одно перечитывание
+    public void signal() {
+        if (!waiters.isEmpty() && wakeScheduled.compareAndSet(false, true)) {
+            executor.execute(this::wake);
+        }
+    }
+
+    private void wake() {
+        wakeScheduled.set(false);
+        if (waiters.isEmpty()) {
+            return;
+        }
+        // Потребители обычно ждут с одного курсора: читаем по разу на курсор
+        Map<Waiter, ChangeFeedDto> pages = new HashMap<>();
+        for (Waiter waiter : waiters) {
+            Waiter key = new Waiter(waiter.after(), waiter.limit(), null);
+            try {
+                ChangeFeedDto page = pages.computeIfAbsent(key, k -> read(k.after(), k.limit()));
+                if (!page.getChanges().isEmpty()) {
+                    waiter.result().setResult(page);
+                }
+            } catch (RuntimeException e) {
+                waiter.result().setErrorResult(e);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,211 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.exception.ServiceUnavailableException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Хеширование и проверка паролей на отдельном ограниченном пуле потоков.
+ * Пул размером с число ядер и короткая очередь: при переполнении запрос
+ * сразу получает 503, а не занимает поток Tomcat на сотни миллисекунд CPU.
+ */
+@Service
+public class CredentialService {
+
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final String PREFIX = "pbkdf2";
+    private static final int SALT_BYTES = 16;
+    private static final int KEY_BITS = 256;
+
+    private final ThreadPoolExecutor executor;
+    private final int iterations;
+    private final long timeoutMillis;
+    private final SecureRandom random = new SecureRandom();
+    private final CompletableFuture<String> dummyHash;
+
+    private final LatencyStats hashStats = new LatencyStats();
+    private final LatencyStats verifyStats = new LatencyStats();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+
+    public CredentialService(@Value("${app.credentials.pool-size:0}") int poolSize,
+                             @Value("${app.credentials.queue-capacity:64}") int queueCapacity,
+                             @Value("${app.credentials.iterations:210000}") int iterations,
+                             @Value("${app.credentials.timeout-ms:2000}") long timeoutMillis) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "credential-hash-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.iterations = iterations;
+        this.timeoutMillis = timeoutMillis;
+        // Для несуществующего логина проверяем пароль против фиктивного хеша,
+        // чтобы время ответа не выдавало наличие пользователя. Считаем его в пуле, не задерживая старт
+        this.dummyHash = CompletableFuture.supplyAsync(() -> encode("dummy-password"), executor);
+    }
+
+    public String hash(String rawPassword) {
+        return submit(() -> encode(rawPassword), hashStats);
+    }
+
+    public boolean verify(String rawPassword, String storedPassword) {
+        String target = storedPassword != null ? storedPassword : dummyHash.join();
+        boolean matches = submit(() -> matches(rawPassword, target), verifyStats);
+        return storedPassword != null && matches;
+    }
+
+    public boolean needsRehash(String storedPassword) {
+        String[] parts = storedPassword.split("\\$");
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) {
+            return true;
+        }
+        try {
+            return Integer.parseInt(parts[1]) < iterations;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("poolSize", executor.getMaximumPoolSize());
+        stats.put("activeThreads", executor.getActiveCount());
+        stats.put("queueDepth", executor.getQueue().size());
+        stats.put("queueRemainingCapacity", executor.getQueue().remainingCapacity());
+        stats.put("rejected", rejected.sum());
+        stats.put("timedOut", timedOut.sum());
+        stats.put("hash", hashStats.snapshot());
+        stats.put("verify", verifyStats.snapshot());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T submit(Callable<T> task, LatencyStats stats) {
+        long queuedAt = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long startedAt = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    stats.record(startedAt - queuedAt, System.nanoTime() - startedAt);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            throw new ServiceUnavailableException("Credential service is overloaded, retry later");
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut.increment();
+            throw new ServiceUnavailableException("Credential service timed out, retry later");
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new ServiceUnavailableException("Credential check was interrupted");
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Password hashing failed", e.getCause());
+        }
+    }
+
+    private String encode(String rawPassword) {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] key = derive(rawPassword, salt, iterations);
+        Base64.Encoder encoder = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + encoder.encodeToString(salt) + "$" + encoder.encodeToString(key);
+    }
+
+    private boolean matches(String rawPassword, String storedPassword) {
+        String[] parts = storedPassword.split("\\$");
+        if (parts.length != 4 || !PREFIX.equals(parts[0])) {
+            return matchesPlain(rawPassword, storedPassword);
+        }
+        byte[] salt;
+        byte[] expected;
+        int storedIterations;
+        try {
+            Base64.Decoder decoder = Base64.getDecoder();
+            salt = decoder.decode(parts[2]);
+            expected = decoder.decode(parts[3]);
+            storedIterations = Integer.parseInt(parts[1]);
+        } catch (IllegalArgumentException e) {
+            // Открытый пароль, похожий на хеш (NumberFormatException тоже сюда): сравниваем как есть
+            return matchesPlain(rawPassword, storedPassword);
+        }
+        if (storedIterations < 1 || salt.length == 0) {
+            return matchesPlain(rawPassword, storedPassword);
+        }
+        byte[] actual = derive(rawPassword, salt, storedIterations);
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    // Пароли, сохранённые до появления хеширования, лежат в открытом виде
+    private static boolean matchesPlain(String rawPassword, String storedPassword) {
+        return MessageDigest.isEqual(rawPassword.getBytes(StandardCharsets.UTF_8),
+                storedPassword.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static byte[] derive(String rawPassword, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(rawPassword.toCharArray(), salt, iterations, KEY_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Password hashing is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    private static final class LatencyStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Long::max, 0);
+
+        void record(long waitNanos, long workNanos) {
+            count.increment();
+            totalNanos.add(workNanos);
+            totalWaitNanos.add(waitNanos);
+            maxNanos.accumulate(workNanos);
+        }
+
+        Map<String, Object> snapshot() {
+            long n = count.sum();
+            Map<String, Object> snapshot = new LinkedHashMap<>();
+            snapshot.put("count", n);
+            snapshot.put("avgMillis", n == 0 ? 0.0 : totalNanos.sum() / 1_000_000.0 / n);
+            snapshot.put("avgQueueWaitMillis", n == 0 ? 0.0 : totalWaitNanos.sum() / 1_000_000.0 / n);
+            snapshot.put("maxMillis", maxNanos.get() / 1_000_000.0);
+            return snapshot;
+        }
+    }
+}
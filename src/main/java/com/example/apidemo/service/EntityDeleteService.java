@@ -0,0 +1,137 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.cache.EntityChange;
+import com.example.apidemo.changes.EntityChangeTracker;
+import com.example.apidemo.dto.BulkDeleteDto;
+import com.example.apidemo.exception.BadRequestException;
+import com.example.apidemo.exception.ResourceConflictException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Удаление одним {@code DELETE ... RETURNING}, без проверки существования и загрузки сущности.
+ * Hibernate о таком удалении не знает, поэтому изменения передаются трекеру: он уведомит outbox, шину
+ * и single-flight и выбросит из L2 только удалённые id, не весь регион, как при массовом JPQL.
+ * Удаление по списку id (не больше {@code maxIds}) идёт порциями по {@code chunkSize} в одной транзакции:
+ * при конфликте не удаляется ничего. Удаление по условию может задеть миллионы строк, поэтому там
+ * каждая порция коммитится отдельно и уже удалённые порции при ошибке не откатываются.
+ */
+@Service
+public class EntityDeleteService {
+
+    private static final String RETURNING = " RETURNING id, version";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final EntityChangeTracker tracker;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int maxIds;
+
+    public EntityDeleteService(EntityChangeTracker tracker,
+                               PlatformTransactionManager transactionManager,
+                               @Value("${app.bulk-delete.chunk-size:500}") int chunkSize,
+                               @Value("${app.bulk-delete.max-ids:1000}") int maxIds) {
+        this.tracker = tracker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        this.maxIds = maxIds;
+    }
+
+    // false, если строки с таким id нет
+    public boolean delete(Class<?> type, Long id) {
+        String sql = "DELETE FROM " + EntityChange.entityName(type) + " WHERE id = ?" + RETURNING;
+        return !execute(type, sql, id).isEmpty();
+    }
+
+    public BulkDeleteDto deleteAll(Class<?> type, List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BadRequestException("At least one id is required");
+        }
+        List<Long> requested = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (requested.size() > maxIds) {
+            throw new BadRequestException("At most " + maxIds + " ids are allowed per request");
+        }
+
+        // Один текст запроса на любой размер порции: план и prepared statement переиспользуются
+        String sql = "DELETE FROM " + EntityChange.entityName(type) + " WHERE id = ANY (?)" + RETURNING;
+        Set<Long> deleted = new HashSet<>(requested.size() * 2);
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int from = 0; from < requested.size(); from += chunkSize) {
+                List<Long> chunk = requested.subList(from, Math.min(from + chunkSize, requested.size()));
+                deleted.addAll(execute(type, sql, (Object) chunk.toArray(new Long[0])));
+            }
+        });
+        List<Long> missingIds = requested.stream().filter(id -> !deleted.contains(id)).toList();
+        return new BulkDeleteDto(deleted.size(), missingIds);
+    }
+
+    /**
+     * Удаляет все строки, подходящие под SQL-условие {@code condition} с параметрами {@code ?}.
+     * Условие подставляется в запрос как есть, поэтому передавать сюда можно только константы из кода.
+     */
+    public BulkDeleteDto deleteWhere(Class<?> type, String condition, Object... parameters) {
+        String table = EntityChange.entityName(type);
+        String sql = "DELETE FROM " + table + " WHERE id IN (SELECT id FROM " + table + " WHERE " + condition
+                + " LIMIT " + chunkSize + ")" + RETURNING;
+        long deleted = 0;
+        int removed;
+        do {
+            removed = execute(type, sql, parameters).size();
+            deleted += removed;
+        } while (removed > 0);
+        return new BulkDeleteDto(deleted, List.of());
+    }
+
+    private List<Long> execute(Class<?> type, String sql, Object... parameters) {
+        try {
+            return transactionTemplate.execute(status -> {
+                List<EntityChange> changes = entityManager.unwrap(SessionImplementor.class).doReturningWork(
+                        connection -> delete(connection, type, sql, parameters));
+                tracker.recordDirectWrite(entityManager, type, changes);
+                return changes.stream().map(EntityChange::id).toList();
+            });
+        } catch (ConstraintViolationException e) {
+            throw new ResourceConflictException("Cannot delete " + EntityChange.entityName(type)
+                    + ": it is still referenced by other records");
+        }
+    }
+
+    private static List<EntityChange> delete(Connection connection, Class<?> type, String sql,
+                                              Object... parameters) throws SQLException {
+        String entity = EntityChange.entityName(type);
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < parameters.length; i++) {
+                Object parameter = parameters[i];
+                statement.setObject(i + 1, parameter instanceof Long[] array
+                        ? connection.createArrayOf("bigint", array)
+                        : parameter);
+            }
+            List<EntityChange> changes = new ArrayList<>();
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    changes.add(new EntityChange(entity, rows.getLong(1), rows.getLong(2),
+                            EntityChange.Operation.DELETE));
+                }
+            }
+            return changes;
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,187 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.exception.BadRequestException;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TupleElement;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.EntityType;
+import jakarta.persistence.metamodel.ManagedType;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Выборка только запрошенных полей ({@code ?fields=id,productTitle,brand.brandTitle}).
+ * В SELECT попадают только эти колонки, связь присоединяется, только если её поля запрошены.
+ * Допустимые поля — те, что Jackson и так отдаёт наружу, поэтому скрытые (пароль) не выбрать.
+ * Идентификатор возвращается всегда.
+ */
+@Service
+public class FieldProjectionService {
+
+    private static final String ID = "id";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+    // JSON-имя поля -> имя атрибута сущности, для каждого типа
+    private final Map<Class<?>, Map<String, String>> visibleFields = new ConcurrentHashMap<>();
+
+    public FieldProjectionService(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Transactional(readOnly = true)
+    public <T> List<Map<String, Object>> findAll(Class<T> type, String fields, Specification<T> filter) {
+        return query(type, fields, filter);
+    }
+
+    @Transactional(readOnly = true)
+    public <T> Optional<Map<String, Object>> findById(Class<T> type, String fields, Long id) {
+        List<Map<String, Object>> rows = query(type, fields, (root, query, cb) -> cb.equal(root.get(ID), id));
+        return rows.stream().findFirst();
+    }
+
+    private <T> List<Map<String, Object>> query(Class<T> type, String fields, Specification<T> filter) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(type);
+
+        Map<String, From<?, ?>> joins = new LinkedHashMap<>();
+        List<Selection<?>> selections = new ArrayList<>();
+        for (String path : resolve(type, fields)) {
+            int dot = path.indexOf('.');
+            if (dot < 0) {
+                selections.add(root.get(attributeName(type, path)).alias(path));
+                continue;
+            }
+            String association = path.substring(0, dot);
+            Class<?> target = associationType(type, association);
+            From<?, ?> join = joins.computeIfAbsent(association,
+                    a -> root.join(attributeName(type, a), JoinType.LEFT));
+            selections.add(join.get(attributeName(target, path.substring(dot + 1))).alias(path));
+        }
+
+        query.multiselect(selections);
+        if (filter != null) {
+            query.where(filter.toPredicate(root, query, cb));
+        }
+        query.orderBy(cb.asc(root.get(ID)));
+
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : entityManager.createQuery(query).getResultList()) {
+            rows.add(toRow(tuple));
+        }
+        return rows;
+    }
+
+    // Разворачивает "brand" в "brand.id,brand.brandTitle" и проверяет, что все поля существуют
+    private List<String> resolve(Class<?> type, String fields) {
+        Set<String> paths = new LinkedHashSet<>();
+        paths.add(ID);
+        for (String raw : fields.split(",")) {
+            String field = raw.trim();
+            if (field.isEmpty()) {
+                continue;
+            }
+            int dot = field.indexOf('.');
+            String head = dot < 0 ? field : field.substring(0, dot);
+            if (!fieldsOf(type).containsKey(head)) {
+                throw unknownField(type, field);
+            }
+            Class<?> association = associationType(type, head);
+            if (association == null) {
+                if (dot >= 0) {
+                    throw unknownField(type, field);
+                }
+                paths.add(head);
+            } else if (dot < 0) {
+                for (String nested : fieldsOf(association).keySet()) {
+                    paths.add(head + "." + nested);
+                }
+            } else {
+                String nested = field.substring(dot + 1);
+                if (!fieldsOf(association).containsKey(nested)) {
+                    throw unknownField(type, field);
+                }
+                paths.add(head + "." + nested);
+            }
+        }
+        return new ArrayList<>(paths);
+    }
+
+    private Map<String, String> fieldsOf(Class<?> type) {
+        return visibleFields.computeIfAbsent(type, t -> {
+            ManagedType<?> managedType = entityManager.getMetamodel().managedType(t);
+            BeanDescription description = objectMapper.getSerializationConfig()
+                    .introspect(objectMapper.constructType(t));
+            Map<String, String> result = new LinkedHashMap<>();
+            for (BeanPropertyDefinition property : description.findProperties()) {
+                if (!property.couldSerialize()) {
+                    continue;
+                }
+                String attribute = property.getInternalName();
+                boolean persistent = managedType.getAttributes().stream()
+                        .anyMatch(a -> a.getName().equals(attribute));
+                if (persistent) {
+                    result.put(property.getName(), attribute);
+                }
+            }
+            return result;
+        });
+    }
+
+    private String attributeName(Class<?> type, String field) {
+        return fieldsOf(type).get(field);
+    }
+
+    // Тип связанной сущности или null, если поле простое
+    private Class<?> associationType(Class<?> type, String field) {
+        EntityType<?> entityType = entityManager.getMetamodel().entity(type);
+        Attribute<?, ?> attribute = entityType.getAttribute(attributeName(type, field));
+        return attribute.isAssociation() ? attribute.getJavaType() : null;
+    }
+
+    private BadRequestException unknownField(Class<?> type, String field) {
+        return new BadRequestException("Unknown field '" + field + "', allowed: " + fieldsOf(type).keySet());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toRow(Tuple tuple) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (TupleElement<?> element : tuple.getElements()) {
+            String path = element.getAlias();
+            Object value = tuple.get(element);
+            int dot = path.indexOf('.');
+            if (dot < 0) {
+                row.put(path, value);
+            } else {
+                Map<String, Object> nested = (Map<String, Object>) row.computeIfAbsent(
+                        path.substring(0, dot), k -> new LinkedHashMap<String, Object>());
+                nested.put(path.substring(dot + 1), value);
+            }
+        }
+        return row;
+    }
+}
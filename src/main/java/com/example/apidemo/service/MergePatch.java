@@ -0,0 +1,46 @@
+package com.example.apidemo.service;
+
+import java.util.Map;
+
+/**
+ * Разобранный JSON Merge Patch: изменённые поля (JSON-имя -> значение атрибута) и версия,
+ * от которой клиент считал изменения. Для связи значение — id связанной сущности.
+ */
+public class MergePatch {
+
+    private final long version;
+    private final Map<String, Object> values;
+
+    MergePatch(long version, Map<String, Object> values) {
+        this.version = version;
+        this.values = values;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public boolean has(String field) {
+        return values.containsKey(field);
+    }
+
+    public Object get(String field) {
+        return values.get(field);
+    }
+
+    // Для значений, которые контроллер преобразует перед записью, например хеш пароля
+    public void set(String field, Object value) {
+        if (!values.containsKey(field)) {
+            throw new IllegalArgumentException("Field " + field + " is not in the patch");
+        }
+        values.put(field, value);
+    }
+
+    public void remove(String field) {
+        values.remove(field);
+    }
+
+    Map<String, Object> values() {
+        return values;
+    }
+}
\ No newline at end of file
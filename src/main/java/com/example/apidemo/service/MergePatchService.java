@@ -0,0 +1,257 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.cache.EntityChange;
+import com.example.apidemo.changes.EntityChangeTracker;
+import com.example.apidemo.exception.BadRequestException;
+import com.example.apidemo.exception.ResourceConflictException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.BeanDescription;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import jakarta.persistence.Column;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.metamodel.Attribute;
+import jakarta.persistence.metamodel.ManagedType;
+import jakarta.persistence.metamodel.SingularAttribute;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.reflect.AnnotatedElement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * JSON Merge Patch (RFC 7396) без загрузки сущности: изменённые поля пишутся одним
+ * {@code UPDATE ... SET <только они>, version = version + 1 WHERE id = ? AND version = ?}.
+ * Значения проверяются теми же ограничениями Bean Validation, что и при PUT.
+ * Менять можно поля, которые Jackson принимает на вход и которые маппятся в обновляемые колонки;
+ * связь задаётся как {@code {"brand": {"id": 5}}}.
+ */
+@Service
+public class MergePatchService {
+
+    public static final String MEDIA_TYPE = "application/merge-patch+json";
+
+    private static final String ID = "id";
+    private static final String VERSION = "version";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EntityChangeTracker tracker;
+    private final TransactionTemplate transactionTemplate;
+    // JSON-имя поля -> атрибут и колонка, для каждого типа
+    private final Map<Class<?>, Map<String, PatchField>> patchableFields = new ConcurrentHashMap<>();
+
+    public MergePatchService(ObjectMapper objectMapper,
+                             Validator validator,
+                             EntityChangeTracker tracker,
+                             PlatformTransactionManager transactionManager) {
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.tracker = tracker;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    // Версию клиент передаёт полем version в патче или заголовком If-Match
+    public <T> MergePatch read(Class<T> type, JsonNode body, String ifMatch) {
+        if (body == null || !body.isObject()) {
+            throw new BadRequestException("Merge patch must be a JSON object");
+        }
+        long version = version(body.get(VERSION), ifMatch);
+        Map<String, PatchField> fields = patchableFields(type);
+
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (Iterator<Map.Entry<String, JsonNode>> it = body.fields(); it.hasNext(); ) {
+            Map.Entry<String, JsonNode> entry = it.next();
+            String name = entry.getKey();
+            if (ID.equals(name) || VERSION.equals(name)) {
+                continue;
+            }
+            PatchField field = fields.get(name);
+            if (field == null) {
+                throw new BadRequestException("Field " + name + " cannot be patched");
+            }
+            Object value = field.association() ? referenceId(name, entry.getValue()) : value(field, entry.getValue());
+            validate(type, field, value);
+            values.put(name, value);
+        }
+        if (values.isEmpty()) {
+            throw new BadRequestException("Merge patch contains no fields to update");
+        }
+        return new MergePatch(version, values);
+    }
+
+    // Новая версия строки; пусто, если строки с таким id нет. Устаревшая версия — 409
+    public <T> OptionalLong apply(Class<T> type, Long id, MergePatch patch) {
+        // Контроллер мог убрать поля после разбора, как key у пользователя: пустой патч версию не меняет
+        if (patch.values().isEmpty()) {
+            throw new BadRequestException("Merge patch contains no fields to update");
+        }
+        Map<String, PatchField> fields = patchableFields(type);
+        String table = EntityChange.entityName(type);
+        StringBuilder sql = new StringBuilder("UPDATE ").append(table).append(" SET ");
+        List<Object> parameters = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : patch.values().entrySet()) {
+            sql.append(fields.get(entry.getKey()).column()).append(" = ?, ");
+            parameters.add(entry.getValue());
+        }
+        sql.append("version = version + 1 WHERE id = ? AND version = ? RETURNING version");
+        parameters.add(id);
+        parameters.add(patch.getVersion());
+
+        try {
+            return transactionTemplate.execute(status -> {
+                SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+                Long updated = session.doReturningWork(connection -> {
+                    try (PreparedStatement statement = connection.prepareStatement(sql.toString())) {
+                        for (int i = 0; i < parameters.size(); i++) {
+                            statement.setObject(i + 1, parameters.get(i));
+                        }
+                        try (ResultSet rows = statement.executeQuery()) {
+                            return rows.next() ? rows.getLong(1) : null;
+                        }
+                    }
+                });
+                if (updated == null) {
+                    OptionalLong current = currentVersion(session, table, id);
+                    if (current.isPresent()) {
+                        throw new ResourceConflictException("Version " + patch.getVersion()
+                                + " is stale, current version is " + current.getAsLong());
+                    }
+                    return OptionalLong.empty();
+                }
+                tracker.recordDirectWrite(entityManager, type,
+                        List.of(new EntityChange(table, id, updated, EntityChange.Operation.UPDATE)));
+                return OptionalLong.of(updated);
+            });
+        } catch (ConstraintViolationException e) {
+            throw new ResourceConflictException("Update of " + table + " " + id + " conflicts with existing data");
+        }
+    }
+
+    // Выполняется только когда UPDATE не нашёл строку: различаем 404 и 409
+    private static OptionalLong currentVersion(SessionImplementor session, String table, Long id) {
+        return session.doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement(
+                    "SELECT version FROM " + table + " WHERE id = ?")) {
+                statement.setLong(1, id);
+                try (ResultSet rows = statement.executeQuery()) {
+                    return rows.next() ? OptionalLong.of(rows.getLong(1)) : OptionalLong.empty();
+                }
+            }
+        });
+    }
+
+    private static long version(JsonNode field, String ifMatch) {
+        if (ifMatch != null && !ifMatch.isBlank()) {
+            String tag = ifMatch.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            try {
+                return Long.parseLong(tag.replace("\"", ""));
+            } catch (NumberFormatException e) {
+                throw new BadRequestException("If-Match must contain the entity version");
+            }
+        }
+        if (field == null || !field.canConvertToLong() || !field.isIntegralNumber()) {
+            throw new BadRequestException("Version is required: send it as \"version\" in the patch or in If-Match");
+        }
+        return field.asLong();
+    }
+
+    private static Long referenceId(String name, JsonNode node) {
+        if (node.isNull()) {
+            return null;
+        }
+        JsonNode id = node.get(ID);
+        if (id == null || !id.isIntegralNumber()) {
+            throw new BadRequestException("Field " + name + " must be an object with a numeric id");
+        }
+        return id.asLong();
+    }
+
+    private Object value(PatchField field, JsonNode node) {
+        if (node.isNull()) {
+            return null;
+        }
+        try {
+            return objectMapper.treeToValue(node, field.javaType());
+        } catch (JsonProcessingException | IllegalArgumentException e) {
+            throw new BadRequestException("Invalid value for field " + field.jsonName());
+        }
+    }
+
+    private <T> void validate(Class<T> type, PatchField field, Object value) {
+        // У связи ограничения проверяем только на null: сама сущность в патч не приходит
+        if (field.association() && value != null) {
+            return;
+        }
+        Set<ConstraintViolation<T>> violations = validator.validateValue(type, field.attribute(), value);
+        if (!violations.isEmpty()) {
+            throw new BadRequestException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    private Map<String, PatchField> patchableFields(Class<?> type) {
+        return patchableFields.computeIfAbsent(type, t -> {
+            ManagedType<?> managedType = entityManager.getMetamodel().managedType(t);
+            BeanDescription description = objectMapper.getDeserializationConfig()
+                    .introspect(objectMapper.constructType(t));
+            Map<String, PatchField> fields = new HashMap<>();
+            for (BeanPropertyDefinition property : description.findProperties()) {
+                if (!property.couldDeserialize()) {
+                    continue;
+                }
+                Attribute<?, ?> attribute;
+                try {
+                    attribute = managedType.getAttribute(property.getInternalName());
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                if (attribute instanceof SingularAttribute<?, ?> singular && (singular.isId() || singular.isVersion())) {
+                    continue;
+                }
+                AnnotatedElement member = (AnnotatedElement) attribute.getJavaMember();
+                Column column = member.getAnnotation(Column.class);
+                JoinColumn joinColumn = member.getAnnotation(JoinColumn.class);
+                if (column != null && column.updatable() && !attribute.isAssociation()) {
+                    fields.put(property.getName(), new PatchField(property.getName(), attribute.getName(),
+                            column.name(), attribute.getJavaType(), false));
+                } else if (joinColumn != null && joinColumn.updatable()
+                        && attribute.getPersistentAttributeType() == Attribute.PersistentAttributeType.MANY_TO_ONE) {
+                    fields.put(property.getName(), new PatchField(property.getName(), attribute.getName(),
+                            joinColumn.name(), Long.class, true));
+                }
+            }
+            return fields;
+        });
+    }
+
+    private record PatchField(String jsonName, String attribute, String column, Class<?> javaType,
+                              boolean association) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,65 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.dto.MultiGetDto;
+import com.example.apidemo.exception.BadRequestException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+
+/**
+ * Загрузка многих сущностей по списку id: один IN-запрос на каждые {@code chunkSize} id
+ * вместо запроса на каждый id. Порядок ответа совпадает с порядком запроса.
+ */
+@Service
+public class MultiGetService {
+
+    private final int chunkSize;
+    private final int maxIds;
+
+    public MultiGetService(@Value("${app.multi-get.chunk-size:500}") int chunkSize,
+                           @Value("${app.multi-get.max-ids:1000}") int maxIds) {
+        this.chunkSize = chunkSize;
+        this.maxIds = maxIds;
+    }
+
+    public <T> MultiGetDto<T> findAll(JpaRepository<T, Long> repository, Function<T, Long> idOf, List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new BadRequestException("At least one id is required");
+        }
+        if (ids.stream().anyMatch(Objects::isNull)) {
+            throw new BadRequestException("Ids must not be empty or null");
+        }
+        List<Long> requested = new ArrayList<>(new LinkedHashSet<>(ids));
+        if (requested.size() > maxIds) {
+            throw new BadRequestException("At most " + maxIds + " ids are allowed per request");
+        }
+
+        Map<Long, T> found = new HashMap<>(requested.size() * 2);
+        for (int from = 0; from < requested.size(); from += chunkSize) {
+            List<Long> chunk = requested.subList(from, Math.min(from + chunkSize, requested.size()));
+            for (T entity : repository.findAllById(chunk)) {
+                found.put(idOf.apply(entity), entity);
+            }
+        }
+
+        List<T> items = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : requested) {
+            T entity = found.get(id);
+            if (entity != null) {
+                items.add(entity);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        return new MultiGetDto<>(items, missingIds);
+    }
+}
\ No newline at end of file
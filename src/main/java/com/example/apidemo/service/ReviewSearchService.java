@@ -0,0 +1,97 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.dto.ReviewDto;
+import com.example.apidemo.dto.ReviewSearchDto;
+import com.example.apidemo.exception.BadRequestException;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Полнотекстовый поиск по заголовкам отзывов. Инвертированный индекс ведёт Postgres:
+ * колонка {@code reviewsearch} (tsvector) генерируется из заголовка при каждой записи,
+ * поверх неё GIN-индекс (миграция V4). Запрос понимает синтаксис веб-поиска:
+ * {@code "точная фраза"}, {@code or}, {@code -исключить}. Фильтры по оценке и дате необязательны
+ * и комбинируются с текстом в одном запросе.
+ * <p>
+ * ts_rank читает tsvector каждой строки, поэтому ранжируются не все совпадения, а {@code maxCandidates}
+ * самых новых (по id), найденных через GIN-индекс. Для частых слов выдача — лучшие из этой выборки,
+ * а не из всех совпадений, листать дальше неё нельзя, и ответ помечается как truncated.
+ */
+@Service
+public class ReviewSearchService {
+
+    // Должен совпадать со словарём, которым построена колонка reviewsearch
+    public static final String CONFIG = "simple";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final int maxPageSize;
+    private final int maxCandidates;
+
+    public ReviewSearchService(@Value("${app.review-search.max-page-size:100}") int maxPageSize,
+                               @Value("${app.review-search.max-candidates:1000}") int maxCandidates) {
+        this.maxPageSize = maxPageSize;
+        this.maxCandidates = maxCandidates;
+    }
+
+    @Transactional(readOnly = true)
+    @SuppressWarnings("unchecked")
+    public ReviewSearchDto search(String text, Integer minRating, Integer maxRating,
+                                  LocalDate startDate, LocalDate endDate, int page, int size) {
+        if (text == null || text.isBlank() || text.length() > 200) {
+            throw new BadRequestException("Search query must be 1 to 200 characters");
+        }
+        if (page < 0 || size < 1 || size > maxPageSize) {
+            throw new BadRequestException("Page must be >= 0 and size between 1 and " + maxPageSize);
+        }
+
+        String tsQuery = "websearch_to_tsquery('" + CONFIG + "', :text)";
+        StringBuilder where = new StringBuilder(" FROM review r WHERE r.reviewsearch @@ ").append(tsQuery);
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("text", text);
+        if (minRating != null) {
+            where.append(" AND r.rating >= :minRating");
+            parameters.put("minRating", minRating);
+        }
+        if (maxRating != null) {
+            where.append(" AND r.rating <= :maxRating");
+            parameters.put("maxRating", maxRating);
+        }
+        if (startDate != null) {
+            where.append(" AND r.reviewdate >= :startDate");
+            parameters.put("startDate", startDate);
+        }
+        if (endDate != null) {
+            where.append(" AND r.reviewdate <= :endDate");
+            parameters.put("endDate", endDate);
+        }
+        parameters.put("candidates", maxCandidates);
+
+        // Совпадения сверх выборки есть, если их больше maxCandidates; считаем не дальше первой лишней строки
+        Query count = entityManager.createNativeQuery(
+                "SELECT count(*) FROM (SELECT 1" + where + " LIMIT :candidates + 1) m");
+        parameters.forEach(count::setParameter);
+        boolean truncated = ((Number) count.getSingleResult()).longValue() > maxCandidates;
+
+        String sql = "SELECT c.* FROM (SELECT r.*" + where + " ORDER BY r.id DESC LIMIT :candidates) c"
+                + " ORDER BY ts_rank(c.reviewsearch, " + tsQuery + ") DESC, c.id DESC LIMIT :limit OFFSET :offset";
+        Query query = entityManager.createNativeQuery(sql, ReviewDto.class);
+        parameters.forEach(query::setParameter);
+        // Одна лишняя строка показывает, есть ли следующая страница, без отдельного count
+        query.setParameter("limit", size + 1);
+        query.setParameter("offset", (long) page * size);
+        List<ReviewDto> reviews = query.getResultList();
+        boolean hasMore = reviews.size() > size;
+        return new ReviewSearchDto(hasMore ? reviews.subList(0, size) : reviews, page, size, hasMore, truncated);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.example.apidemo.service;
+
+import com.example.apidemo.dto.UserDto;
+import com.example.apidemo.exception.ResourceConflictException;
+import com.example.apidemo.repository.UserRepo;
+import com.example.apidemo.util.BloomFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Stream;
+
+/**
+ * Префильтр уникальности телефона и логина при регистрации.
+ * Если фильтр Блума говорит "точно нет", запрос в БД не нужен —
+ * от гонок и записей с других узлов защищают уникальные ограничения,
+ * нарушение которых переводится в 409 с указанием поля.
+ */
+@Service
+public class UserUniquenessFilter {
+
+    private final UserRepo repository;
+    private final BloomFilter phoneNumbers;
+    private final BloomFilter clientLogins;
+    private volatile boolean ready;
+
+    public UserUniquenessFilter(UserRepo repository,
+                                @Value("${app.users.bloom.expected-insertions:1000000}") long expectedInsertions,
+                                @Value("${app.users.bloom.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.repository = repository;
+        this.phoneNumbers = new BloomFilter(expectedInsertions, falsePositiveRate);
+        this.clientLogins = new BloomFilter(expectedInsertions, falsePositiveRate);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        try (Stream<Object[]> keys = repository.streamUniqueKeys()) {
+            keys.forEach(row -> {
+                phoneNumbers.put((String) row[0]);
+                clientLogins.put((String) row[1]);
+            });
+        }
+        ready = true;
+    }
+
+    // null — поле не меняется (частичное обновление)
+    public void checkAvailable(String phoneNumber, String clientLogin, Long ownId) {
+        // Пока фильтр не загружен, всегда идём в БД
+        if (ready && !mightContain(phoneNumbers, phoneNumber) && !mightContain(clientLogins, clientLogin)) {
+            return;
+        }
+        for (UserDto existing : repository.findByPhoneNumberOrClientLogin(phoneNumber, clientLogin)) {
+            if (existing.getId().equals(ownId)) {
+                continue;
+            }
+            if (phoneNumber != null && phoneNumber.equals(existing.getPhoneNumber())) {
+                throw new ResourceConflictException("User with this phone number already exists");
+            }
+            throw new ResourceConflictException("User with this login already exists");
+        }
+    }
+
+    public void record(UserDto user) {
+        record(user.getPhoneNumber(), user.getClientLogin());
+    }
+
+    public void record(String phoneNumber, String clientLogin) {
+        if (phoneNumber != null) {
+            phoneNumbers.put(phoneNumber);
+        }
+        if (clientLogin != null) {
+            clientLogins.put(clientLogin);
+        }
+    }
+
+    public RuntimeException toConflict(DataIntegrityViolationException e) {
+        String message = String.valueOf(e.getMostSpecificCause().getMessage()).toLowerCase();
+        if (message.contains("(phonenumber)")) {
+            return new ResourceConflictException("User with this phone number already exists");
+        }
+        if (message.contains("(clientlogin)")) {
+            return new ResourceConflictException("User with this login already exists");
+        }
+        if (message.contains("(key)")) {
+            return new ResourceConflictException("User with this key already exists");
+        }
+        return e;
+    }
+
+    private static boolean mightContain(BloomFilter filter, String value) {
+        return value != null && filter.mightContain(value);
+    }
+}
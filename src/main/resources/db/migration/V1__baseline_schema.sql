@@ -0,0 +1,70 @@
+-- Схема, которую раньше создавал ddl-auto=update. IF NOT EXISTS: на существующей базе ничего не меняет
+CREATE TABLE IF NOT EXISTS roles (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version        INTEGER,
+    charactertitle VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS users (
+    id             BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version        INTEGER,
+    key            BIGINT UNIQUE,
+    firstname      VARCHAR(255) NOT NULL,
+    surname        VARCHAR(255) NOT NULL,
+    lastname       VARCHAR(255),
+    phonenumber    VARCHAR(255) NOT NULL UNIQUE,
+    clientlogin    VARCHAR(255) NOT NULL UNIQUE,
+    clientpassword VARCHAR(255) NOT NULL,
+    roleid         INTEGER      NOT NULL,
+    regdate        TIMESTAMP(6)
+);
+
+CREATE TABLE IF NOT EXISTS brand (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version    INTEGER,
+    brandtitle VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS category (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version       INTEGER,
+    categorytitle VARCHAR(255) NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS product (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version      INTEGER,
+    producttitle VARCHAR(255) NOT NULL,
+    price        INTEGER      NOT NULL,
+    quantity     INTEGER      NOT NULL,
+    brandid      BIGINT       NOT NULL REFERENCES brand (id),
+    categoryid   BIGINT       NOT NULL REFERENCES category (id)
+);
+
+CREATE TABLE IF NOT EXISTS orders (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version   INTEGER,
+    orderdate DATE         NOT NULL,
+    status    VARCHAR(255) NOT NULL,
+    userid    BIGINT       NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS payment (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version       INTEGER,
+    price         INTEGER      NOT NULL,
+    paymentmethod VARCHAR(255) NOT NULL,
+    paymentdate   DATE         NOT NULL,
+    userid        BIGINT       NOT NULL,
+    orderid       BIGINT       NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS review (
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version     INTEGER,
+    reviewtitle VARCHAR(255) NOT NULL,
+    rating      INTEGER      NOT NULL,
+    reviewdate  DATE         NOT NULL,
+    userid      BIGINT       NOT NULL,
+    orderid     BIGINT       NOT NULL
+);
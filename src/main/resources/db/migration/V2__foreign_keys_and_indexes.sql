@@ -0,0 +1,35 @@
+-- Связи, которые в сущностях хранятся просто id, ddl-auto не создавал
+ALTER TABLE users   ADD CONSTRAINT fk_users_role     FOREIGN KEY (roleid)  REFERENCES roles (id);
+ALTER TABLE orders  ADD CONSTRAINT fk_orders_user    FOREIGN KEY (userid)  REFERENCES users (id);
+ALTER TABLE payment ADD CONSTRAINT fk_payment_user   FOREIGN KEY (userid)  REFERENCES users (id);
+ALTER TABLE payment ADD CONSTRAINT fk_payment_order  FOREIGN KEY (orderid) REFERENCES orders (id);
+ALTER TABLE review  ADD CONSTRAINT fk_review_user    FOREIGN KEY (userid)  REFERENCES users (id);
+ALTER TABLE review  ADD CONSTRAINT fk_review_order   FOREIGN KEY (orderid) REFERENCES orders (id);
+
+-- Индексы под finder'ы репозиториев. Составные с id обслуживают и выборку, и keyset/ORDER BY id
+CREATE INDEX IF NOT EXISTS idx_users_roleid ON users (roleid);
+
+CREATE INDEX IF NOT EXISTS idx_brand_brandtitle ON brand (brandtitle);
+CREATE INDEX IF NOT EXISTS idx_category_categorytitle ON category (categorytitle);
+
+CREATE INDEX IF NOT EXISTS idx_product_brandid ON product (brandid, id);
+CREATE INDEX IF NOT EXISTS idx_product_categoryid ON product (categoryid, id);
+CREATE INDEX IF NOT EXISTS idx_product_price ON product (price);
+CREATE INDEX IF NOT EXISTS idx_product_producttitle ON product (producttitle);
+-- Поиск по подстроке без учёта регистра (upper(producttitle) LIKE '%...%')
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE INDEX IF NOT EXISTS idx_product_producttitle_trgm ON product USING gin (upper(producttitle) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_orders_userid ON orders (userid);
+CREATE INDEX IF NOT EXISTS idx_orders_status ON orders (status, id);
+CREATE INDEX IF NOT EXISTS idx_orders_orderdate ON orders (orderdate);
+
+CREATE INDEX IF NOT EXISTS idx_payment_userid ON payment (userid);
+CREATE INDEX IF NOT EXISTS idx_payment_orderid ON payment (orderid);
+CREATE INDEX IF NOT EXISTS idx_payment_paymentdate ON payment (paymentdate);
+CREATE INDEX IF NOT EXISTS idx_payment_paymentmethod ON payment (paymentmethod, id);
+
+-- (userid, orderid) обслуживает и поиск по userid, и проверку повторного отзыва
+CREATE INDEX IF NOT EXISTS idx_review_userid_orderid ON review (userid, orderid);
+CREATE INDEX IF NOT EXISTS idx_review_orderid ON review (orderid);
+CREATE INDEX IF NOT EXISTS idx_review_rating ON review (rating);
@@ -0,0 +1,9 @@
+-- Лента изменений: строки добавляются в транзакции, изменившей сущность, в порядке коммитов
+CREATE TABLE IF NOT EXISTS outbox (
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    entity    VARCHAR(255) NOT NULL,
+    entityid  BIGINT       NOT NULL,
+    version   BIGINT       NOT NULL,
+    operation VARCHAR(255) NOT NULL,
+    changedat TIMESTAMP(6) NOT NULL
+);
@@ -0,0 +1,8 @@
+-- Полнотекстовый поиск по заголовкам отзывов. Словарь simple: слова в нижнем регистре, без стемминга,
+-- одинаково для русских и английских отзывов. Стемминг — новой миграцией с другим словарём
+-- (например russian) и тем же словарём в ReviewSearchService.CONFIG
+ALTER TABLE review ADD COLUMN IF NOT EXISTS reviewsearch tsvector
+    GENERATED ALWAYS AS (to_tsvector('simple', reviewtitle)) STORED;
+
+-- Инвертированный индекс: лексема -> сжатый список строк
+CREATE INDEX IF NOT EXISTS idx_review_reviewsearch ON review USING gin (reviewsearch);
\ No newline at end of file
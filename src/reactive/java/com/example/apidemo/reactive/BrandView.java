@@ -0,0 +1,5 @@
+package com.example.apidemo.reactive;
+
+// Бренд в том же JSON-виде, что BrandDto основного приложения
+public record BrandView(Long id, Integer version, String brandTitle) {
+}
\ No newline at end of file
@@ -0,0 +1,97 @@
+package com.example.apidemo.reactive;
+
+import io.r2dbc.spi.Readable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Чтение каталога через R2DBC. Запросы со списками выполняются с {@code fetchSize}: драйвер читает
+ * строки из открытого курсора порциями по мере спроса подписчика, так что медленный клиент
+ * останавливает чтение из БД, а в памяти лежит не больше одной порции. Пока поток открыт,
+ * он держит одно соединение пула R2DBC; поток не держит ни одного потока исполнения.
+ */
+@Repository
+public class CatalogRepository {
+
+    private static final String PRODUCTS = "SELECT p.id, p.version, p.producttitle, p.price, p.quantity, "
+            + "b.id AS b_id, b.version AS b_version, b.brandtitle, "
+            + "c.id AS c_id, c.version AS c_version, c.categorytitle "
+            + "FROM product p JOIN brand b ON b.id = p.brandid JOIN category c ON c.id = p.categoryid ";
+
+    private final DatabaseClient client;
+    private final int fetchSize;
+
+    public CatalogRepository(DatabaseClient client, @Value("${app.reactive.fetch-size:256}") int fetchSize) {
+        this.client = client;
+        this.fetchSize = fetchSize;
+    }
+
+    public Mono<ProductView> findProduct(Long id) {
+        return client.sql(PRODUCTS + "WHERE p.id = :id")
+                .bind("id", id)
+                .map(CatalogRepository::product)
+                .one();
+    }
+
+    public Flux<ProductView> findProducts() {
+        return products(client.sql(PRODUCTS + "ORDER BY p.id"));
+    }
+
+    // Тот же предикат, что у ProductRepo, поэтому работает триграммный индекс по upper(producttitle)
+    public Flux<ProductView> findProductsByTitle(String title) {
+        return products(client.sql(PRODUCTS + "WHERE upper(p.producttitle) LIKE upper('%' || :title || '%') "
+                + "ORDER BY p.id").bind("title", title));
+    }
+
+    public Flux<ProductView> findProductsByBrand(Long brandId) {
+        return products(client.sql(PRODUCTS + "WHERE p.brandid = :brandId ORDER BY p.id")
+                .bind("brandId", brandId));
+    }
+
+    public Flux<ProductView> findProductsByCategory(Long categoryId) {
+        return products(client.sql(PRODUCTS + "WHERE p.categoryid = :categoryId ORDER BY p.id")
+                .bind("categoryId", categoryId));
+    }
+
+    public Flux<ProductView> findProductsByPriceRange(Integer minPrice, Integer maxPrice) {
+        return products(client.sql(PRODUCTS + "WHERE p.price BETWEEN :minPrice AND :maxPrice ORDER BY p.id")
+                .bind("minPrice", minPrice)
+                .bind("maxPrice", maxPrice));
+    }
+
+    public Flux<BrandView> findBrands() {
+        return client.sql("SELECT id, version, brandtitle FROM brand ORDER BY id")
+                .map(row -> new BrandView(row.get("id", Long.class), row.get("version", Integer.class),
+                        row.get("brandtitle", String.class)))
+                .all();
+    }
+
+    public Flux<CategoryView> findCategories() {
+        return client.sql("SELECT id, version, categorytitle FROM category ORDER BY id")
+                .map(row -> new CategoryView(row.get("id", Long.class), row.get("version", Integer.class),
+                        row.get("categorytitle", String.class)))
+                .all();
+    }
+
+    private Flux<ProductView> products(DatabaseClient.GenericExecuteSpec spec) {
+        return spec.filter((statement, next) -> next.execute(statement.fetchSize(fetchSize)))
+                .map(CatalogRepository::product)
+                .all();
+    }
+
+    private static ProductView product(Readable row) {
+        return new ProductView(
+                row.get("id", Long.class),
+                row.get("version", Integer.class),
+                row.get("producttitle", String.class),
+                row.get("price", Integer.class),
+                row.get("quantity", Integer.class),
+                new BrandView(row.get("b_id", Long.class), row.get("b_version", Integer.class),
+                        row.get("brandtitle", String.class)),
+                new CategoryView(row.get("c_id", Long.class), row.get("c_version", Integer.class),
+                        row.get("categorytitle", String.class)));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,5 @@
+package com.example.apidemo.reactive;
+
+// Категория в том же JSON-виде, что CategoryDto основного приложения
+public record CategoryView(Long id, Integer version, String categoryTitle) {
+}
\ No newline at end of file
@@ -0,0 +1,89 @@
+package com.example.apidemo.reactive;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Те же чтения товаров, что в ProductController, но списки отдаются как {@link Flux}:
+ * JSON-массивом по умолчанию или NDJSON при {@code Accept: application/x-ndjson}.
+ * Элементы пишутся по мере чтения из курсора, с обратным давлением до драйвера.
+ */
+@RestController
+@RequestMapping("/api/products")
+@Tag(name = "Reactive Product Reads", description = "Non-blocking read-only product endpoints")
+public class ProductReadController {
+
+    private final CatalogRepository repository;
+
+    public ProductReadController(CatalogRepository repository) {
+        this.repository = repository;
+    }
+
+    @Operation(summary = "Get all products", description = "Streams all products")
+    @ApiResponse(responseCode = "200", description = "All products")
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ProductView> getAllProducts() {
+        return repository.findProducts();
+    }
+
+    @Operation(summary = "Get product by ID", description = "Returns a product by its ID")
+    @ApiResponse(responseCode = "200", description = "Found the product")
+    @ApiResponse(responseCode = "404", description = "Product not found")
+    @GetMapping("/{id}")
+    public Mono<ProductView> getProductById(
+            @Parameter(description = "ID of the product to retrieve", required = true)
+            @PathVariable Long id) {
+        return repository.findProduct(id)
+                .switchIfEmpty(Mono.error(() ->
+                        new ResponseStatusException(HttpStatus.NOT_FOUND, "Product not found with id: " + id)));
+    }
+
+    @Operation(summary = "Search products by title", description = "Streams products containing the search string in title")
+    @ApiResponse(responseCode = "200", description = "Matching products")
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ProductView> searchProductsByTitle(
+            @Parameter(description = "Search string for product title", required = true)
+            @RequestParam String title) {
+        return repository.findProductsByTitle(title);
+    }
+
+    @Operation(summary = "Get products by brand", description = "Streams products of specified brand")
+    @ApiResponse(responseCode = "200", description = "Products of the brand")
+    @GetMapping(value = "/by-brand/{brandId}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ProductView> getProductsByBrand(
+            @Parameter(description = "ID of the brand", required = true)
+            @PathVariable Long brandId) {
+        return repository.findProductsByBrand(brandId);
+    }
+
+    @Operation(summary = "Get products by category", description = "Streams products of specified category")
+    @ApiResponse(responseCode = "200", description = "Products of the category")
+    @GetMapping(value = "/by-category/{categoryId}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ProductView> getProductsByCategory(
+            @Parameter(description = "ID of the category", required = true)
+            @PathVariable Long categoryId) {
+        return repository.findProductsByCategory(categoryId);
+    }
+
+    @Operation(summary = "Get products by price range",
+            description = "Streams products with price between min and max values")
+    @ApiResponse(responseCode = "200", description = "Products in the price range")
+    @GetMapping(value = "/by-price", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<ProductView> getProductsByPriceRange(
+            @Parameter(description = "Minimum price", required = true)
+            @RequestParam Integer minPrice,
+            @Parameter(description = "Maximum price", required = true)
+            @RequestParam Integer maxPrice) {
+        return repository.findProductsByPriceRange(minPrice, maxPrice);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,6 @@
+package com.example.apidemo.reactive;
+
+// Товар в том же JSON-виде, что ProductDto основного приложения
+public record ProductView(Long id, Integer version, String productTitle, Integer price, Integer quantity,
+                          BrandView brand, CategoryView category) {
+}
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.example.apidemo.reactive;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+
+/**
+ * Отдельное read-only приложение на WebFlux и R2DBC поверх тех же таблиц product, brand и category.
+ * Пути совпадают с основным приложением, поэтому один и тот же сценарий нагрузки можно прогнать
+ * против обоих стеков (см. сценарий reactive-catalog). Собирается отдельным модулем из src/reactive:
+ * WebFlux и Spring MVC в одном приложении не уживаются.
+ */
+@SpringBootApplication
+public class ReactiveReadApplication {
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveReadApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .run(args);
+    }
+}
\ No newline at end of file
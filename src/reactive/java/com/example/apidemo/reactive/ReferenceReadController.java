@@ -0,0 +1,35 @@
+package com.example.apidemo.reactive;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+
+@RestController
+@Tag(name = "Reactive Reference Reads", description = "Non-blocking read-only brand and category lists")
+public class ReferenceReadController {
+
+    private final CatalogRepository repository;
+
+    public ReferenceReadController(CatalogRepository repository) {
+        this.repository = repository;
+    }
+
+    @Operation(summary = "Get all brands", description = "Streams all brands")
+    @ApiResponse(responseCode = "200", description = "List of all brands")
+    @GetMapping(value = "/api/brands", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<BrandView> getAllBrands() {
+        return repository.findBrands();
+    }
+
+    @Operation(summary = "Get all categories", description = "Streams all categories")
+    @ApiResponse(responseCode = "200", description = "List of all categories")
+    @GetMapping(value = "/api/categories",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<CategoryView> getAllCategories() {
+        return repository.findCategories();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,153 @@
+package com.example.apidemo;
+
+import com.example.apidemo.cache.CacheInvalidator;
+import com.example.apidemo.cache.ChangePublisher;
+import com.example.apidemo.cache.SnapshotCache;
+import com.example.apidemo.dto.BrandDto;
+import com.example.apidemo.dto.ProductDto;
+import com.example.apidemo.repository.BrandRepo;
+import com.example.apidemo.repository.CategoryRepo;
+import com.example.apidemo.repository.ProductRepo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Шина изменений на настоящем Postgres: запись публикует NOTIFY только при коммите,
+ * а уведомление «чужого» узла сбрасывает кэш второго уровня и снимок справочника.
+ */
+@SpringBootTest
+class ChangeBusTests {
+
+    @Autowired private BrandRepo brandRepo;
+    @Autowired private CategoryRepo categoryRepo;
+    @Autowired private ProductRepo productRepo;
+    @Autowired private SnapshotCache<BrandDto> brandSnapshot;
+    @Autowired private CacheInvalidator invalidator;
+    @Autowired private DataSource dataSource;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Test
+    void commitPublishesAndRollbackDoesNot() throws Exception {
+        try (Connection listener = dataSource.getConnection()) {
+            listen(listener);
+            String rolledBack = TestFixtures.unique("Bus rollback");
+            transactionTemplate.executeWithoutResult(status -> {
+                brandRepo.saveAndFlush(new BrandDto(rolledBack));
+                status.setRollbackOnly();
+            });
+            BrandDto brand = brandRepo.save(new BrandDto(TestFixtures.unique("Bus commit")));
+            try {
+                List<String> payloads = poll(listener, 1);
+                assertTrue(payloads.size() == 1 && payloads.get(0).endsWith(" brand:" + brand.getId() + ":0:I"),
+                        payloads.toString());
+            } finally {
+                brandRepo.deleteById(brand.getId());
+            }
+        }
+    }
+
+    @Test
+    void notificationFromAnotherNodeEvictsCaches() throws Exception {
+        BrandDto brand = brandRepo.save(new BrandDto(TestFixtures.unique("Bus remote")));
+        try {
+            brandRepo.findById(brand.getId());
+            brandSnapshot.refresh();
+            assertTrue(cache().containsEntity(BrandDto.class, brand.getId()));
+
+            String renamed = brand.getBrandTitle() + " renamed";
+            execute("UPDATE brand SET brandtitle = '" + renamed + "', version = version + 1 WHERE id = " + brand.getId(),
+                    "SELECT pg_notify('" + ChangePublisher.CHANNEL + "', 'othernode brand:" + brand.getId() + ":1:U')");
+
+            waitFor(() -> brandSnapshot.get().items().stream().anyMatch(b -> renamed.equals(b.getBrandTitle())));
+            assertEquals(renamed, brandRepo.findById(brand.getId()).orElseThrow().getBrandTitle());
+        } finally {
+            brandRepo.deleteById(brand.getId());
+        }
+    }
+
+    @Test
+    void catchUpReplacesEntriesWithStaleVersion() throws Exception {
+        ProductDto product = TestFixtures.saveProduct(brandRepo, categoryRepo, productRepo, "Bus product", 1);
+        try {
+            productRepo.findById(product.getId());
+            assertTrue(cache().containsEntity(ProductDto.class, product.getId()));
+            // Запись без уведомления — как будто пришла, пока LISTEN-соединение было разорвано
+            execute("UPDATE product SET producttitle = producttitle || ' renamed', version = version + 1"
+                    + " WHERE id = " + product.getId());
+
+            invalidator.catchUp();
+
+            assertFalse(cache().containsEntity(ProductDto.class, product.getId()));
+            assertEquals(product.getProductTitle() + " renamed",
+                    productRepo.findById(product.getId()).orElseThrow().getProductTitle());
+        } finally {
+            TestFixtures.deleteProduct(brandRepo, categoryRepo, productRepo, product);
+        }
+    }
+
+    private org.hibernate.Cache cache() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getCache();
+    }
+
+    private void listen(Connection connection) throws Exception {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("LISTEN " + ChangePublisher.CHANNEL);
+        }
+    }
+
+    private void execute(String... sql) throws Exception {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String s : sql) {
+                statement.execute(s);
+            }
+        }
+    }
+
+    private static List<String> poll(Connection connection, int expected) throws Exception {
+        List<String> payloads = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (payloads.size() < expected && System.currentTimeMillis() < deadline) {
+            PGNotification[] notifications = connection.unwrap(PGConnection.class).getNotifications(200);
+            if (notifications != null) {
+                for (PGNotification notification : notifications) {
+                    payloads.add(notification.getParameter());
+                }
+            }
+        }
+        // Лишние уведомления, например от отката, тоже должны попасть в проверку
+        PGNotification[] rest = connection.unwrap(PGConnection.class).getNotifications(300);
+        if (rest != null) {
+            for (PGNotification notification : rest) {
+                payloads.add(notification.getParameter());
+            }
+        }
+        return payloads;
+    }
+
+    private static void waitFor(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertTrue(condition.getAsBoolean(), "cache was not invalidated in time");
+    }
+}
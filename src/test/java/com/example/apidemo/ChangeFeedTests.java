@@ -0,0 +1,98 @@
+package com.example.apidemo;
+
+import com.example.apidemo.dto.BrandDto;
+import com.example.apidemo.repository.BrandRepo;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class ChangeFeedTests {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private BrandRepo brandRepo;
+    @Autowired private TransactionTemplate transactionTemplate;
+
+    @Test
+    void feedReturnsCommittedChangesInOrder() throws Exception {
+        long cursor = latestCursor();
+        transactionTemplate.executeWithoutResult(status -> {
+            brandRepo.saveAndFlush(new BrandDto(TestFixtures.unique("Feed rollback")));
+            status.setRollbackOnly();
+        });
+        BrandDto brand = brandRepo.save(new BrandDto(TestFixtures.unique("Feed")));
+        brand.setBrandTitle(brand.getBrandTitle() + " renamed");
+        brand = brandRepo.save(brand);
+        brandRepo.deleteById(brand.getId());
+
+        JsonNode feed = feed("/api/changes?after=" + cursor);
+        JsonNode changes = feed.get("changes");
+        assertEquals(3, changes.size(), changes.toString());
+        String[] operations = {"INSERT", "UPDATE", "DELETE"};
+        for (int i = 0; i < 3; i++) {
+            assertEquals("brand", changes.get(i).get("entity").asText());
+            assertEquals(brand.getId().longValue(), changes.get(i).get("entityId").asLong());
+            assertEquals(operations[i], changes.get(i).get("operation").asText());
+        }
+        assertEquals(changes.get(2).get("id").asLong(), feed.get("next").asLong());
+    }
+
+    @Test
+    void longPollReturnsAsSoonAsChangeIsCommitted() throws Exception {
+        long cursor = latestCursor();
+        long started = System.nanoTime();
+        MvcResult pending = mockMvc.perform(get("/api/changes?wait=20&after=" + cursor))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        BrandDto brand = CompletableFuture.supplyAsync(
+                () -> brandRepo.save(new BrandDto(TestFixtures.unique("Feed poll")))).get();
+        try {
+            pending.getAsyncResult(TimeUnit.SECONDS.toMillis(10));
+            long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+            JsonNode feed = objectMapper.readTree(mockMvc.perform(asyncDispatch(pending))
+                    .andExpect(status().isOk())
+                    .andReturn().getResponse().getContentAsString());
+            assertEquals(brand.getId().longValue(), feed.get("changes").get(0).get("entityId").asLong());
+            assertTrue(elapsedMillis < 5000, "long poll took " + elapsedMillis + " ms");
+        } finally {
+            brandRepo.deleteById(brand.getId());
+        }
+    }
+
+    private long latestCursor() throws Exception {
+        long cursor = 0;
+        while (true) {
+            JsonNode feed = feed("/api/changes?limit=1000&after=" + cursor);
+            if (feed.get("changes").isEmpty()) {
+                return cursor;
+            }
+            cursor = feed.get("next").asLong();
+        }
+    }
+
+    private JsonNode feed(String uri) throws Exception {
+        MvcResult result = mockMvc.perform(get(uri)).andReturn();
+        return objectMapper.readTree(mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString());
+    }
+}
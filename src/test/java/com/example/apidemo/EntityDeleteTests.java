@@ -0,0 +1,114 @@
+package com.example.apidemo;
+
+import com.example.apidemo.dto.BrandDto;
+import com.example.apidemo.dto.OrderDto;
+import com.example.apidemo.dto.PaymentDto;
+import com.example.apidemo.dto.UserDto;
+import com.example.apidemo.repository.BrandRepo;
+import com.example.apidemo.repository.OrderRepo;
+import com.example.apidemo.repository.PaymentRepo;
+import com.example.apidemo.repository.RolesRepo;
+import com.example.apidemo.repository.UserRepo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Без шины: уведомления о своих же изменениях другие тестовые контексты применили бы к общему кешу
+// Порции по одной строке: конфликт во второй порции должен откатить и первую
+@SpringBootTest(properties = {"app.change-bus.enabled=false", "app.bulk-delete.chunk-size=1"})
+@AutoConfigureMockMvc
+class EntityDeleteTests {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private BrandRepo brandRepo;
+    @Autowired private RolesRepo rolesRepo;
+    @Autowired private UserRepo userRepo;
+    @Autowired private OrderRepo orderRepo;
+    @Autowired private PaymentRepo paymentRepo;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void deleteEvictsOnlyTheDeletedEntity() throws Exception {
+        BrandDto deleted = brandRepo.save(new BrandDto(TestFixtures.unique("Delete brand")));
+        BrandDto kept = brandRepo.save(new BrandDto(TestFixtures.unique("Kept brand")));
+        try {
+            mockMvc.perform(get("/api/brands/{id}", deleted.getId())).andExpect(status().isOk());
+            mockMvc.perform(get("/api/brands/{id}", kept.getId())).andExpect(status().isOk());
+            Cache cache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+            assertTrue(cache.containsEntity(BrandDto.class, kept.getId()));
+
+            mockMvc.perform(delete("/api/brands/{id}", deleted.getId())).andExpect(status().isNoContent());
+            mockMvc.perform(delete("/api/brands/{id}", deleted.getId())).andExpect(status().isNotFound());
+            mockMvc.perform(get("/api/brands/{id}", deleted.getId())).andExpect(status().isNotFound());
+
+            // Удаление по id не сбрасывает весь регион, как это делает массовый JPQL
+            assertFalse(cache.containsEntity(BrandDto.class, deleted.getId()));
+            assertTrue(cache.containsEntity(BrandDto.class, kept.getId()));
+        } finally {
+            brandRepo.deleteById(kept.getId());
+        }
+    }
+
+    @Test
+    void bulkDeleteReportsMissingIds() throws Exception {
+        BrandDto first = brandRepo.save(new BrandDto(TestFixtures.unique("Bulk brand 1")));
+        BrandDto second = brandRepo.save(new BrandDto(TestFixtures.unique("Bulk brand 2")));
+
+        mockMvc.perform(delete("/api/brands").param("ids", first.getId() + "," + second.getId() + ",-1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deleted").value(2))
+                .andExpect(jsonPath("$.missingIds[0]").value(-1));
+        assertFalse(brandRepo.existsById(first.getId()));
+        assertFalse(brandRepo.existsById(second.getId()));
+    }
+
+    @Test
+    void deletesOldOrdersWithoutPaymentsAndRejectsReferencedOnes() throws Exception {
+        UserDto user = TestFixtures.saveUser(rolesRepo, userRepo, "Delete");
+
+        LocalDate old = LocalDate.of(1990, 1, 1);
+        OrderDto paid = order(user, old);
+        OrderDto unpaid = order(user, old);
+        OrderDto recent = order(user, LocalDate.now());
+        PaymentDto payment = new PaymentDto(100, "card", user.getId(), paid.getId());
+        payment.setPaymentDate(old);
+        payment = paymentRepo.save(payment);
+        try {
+            mockMvc.perform(delete("/api/orders/{id}", paid.getId())).andExpect(status().isConflict());
+            mockMvc.perform(delete("/api/orders").param("ids", unpaid.getId() + "," + paid.getId()))
+                    .andExpect(status().isConflict());
+            assertTrue(orderRepo.existsById(unpaid.getId()));
+
+            mockMvc.perform(delete("/api/orders/by-date").param("before", "1990-01-02"))
+                    .andExpect(status().isOk());
+            assertTrue(orderRepo.existsById(paid.getId()));
+            assertFalse(orderRepo.existsById(unpaid.getId()));
+            assertTrue(orderRepo.existsById(recent.getId()));
+        } finally {
+            paymentRepo.deleteAllById(List.of(payment.getId()));
+            orderRepo.deleteAllById(List.of(paid.getId(), recent.getId()));
+            TestFixtures.deleteUser(rolesRepo, userRepo, user);
+        }
+    }
+
+    private OrderDto order(UserDto user, LocalDate date) {
+        OrderDto order = new OrderDto("NEW", user.getId());
+        order.setOrderDate(date);
+        return orderRepo.save(order);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,181 @@
+package com.example.apidemo;
+
+import com.example.apidemo.repository.BrandRepo;
+import com.example.apidemo.repository.CategoryRepo;
+import com.example.apidemo.repository.ChangeRecordRepo;
+import com.example.apidemo.repository.OrderRepo;
+import com.example.apidemo.repository.PaymentRepo;
+import com.example.apidemo.repository.ProductRepo;
+import com.example.apidemo.repository.ReviewRepo;
+import com.example.apidemo.repository.RolesRepo;
+import com.example.apidemo.repository.UserRepo;
+import com.example.apidemo.service.ReviewSearchService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Каждый finder репозиториев должен выполняться по индексу. Перехватываем SQL, который
+ * реально генерирует Hibernate, и смотрим его generic-план с запрещённым seq scan:
+ * если подходящего индекса нет, Postgres всё равно выберет Seq Scan.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+        + "com.example.apidemo.IndexUsageTests$RecordingInspector")
+class IndexUsageTests {
+
+    // Выгрузка всех ключей для Bloom-фильтра читает таблицу целиком намеренно
+    private static final Set<String> FULL_SCANS = Set.of("UserRepo.streamUniqueKeys");
+
+    @Autowired private BrandRepo brandRepo;
+    @Autowired private CategoryRepo categoryRepo;
+    @Autowired private ChangeRecordRepo changeRecordRepo;
+    @Autowired private OrderRepo orderRepo;
+    @Autowired private PaymentRepo paymentRepo;
+    @Autowired private ProductRepo productRepo;
+    @Autowired private ReviewRepo reviewRepo;
+    @Autowired private RolesRepo rolesRepo;
+    @Autowired private UserRepo userRepo;
+    @Autowired private ReviewSearchService reviewSearchService;
+    @Autowired private DataSource dataSource;
+    @Autowired private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void everyFinderUsesAnIndex() throws Exception {
+        Map<String, Runnable> finders = finders();
+        for (Class<?> repo : List.of(BrandRepo.class, CategoryRepo.class, ChangeRecordRepo.class, OrderRepo.class,
+                PaymentRepo.class, ProductRepo.class, ReviewRepo.class, RolesRepo.class, UserRepo.class)) {
+            for (Method method : repo.getDeclaredMethods()) {
+                String name = repo.getSimpleName() + "." + method.getName();
+                assertTrue(finders.containsKey(name) || FULL_SCANS.contains(name),
+                        name + " is not covered by the index usage test");
+            }
+        }
+
+        for (Map.Entry<String, Runnable> finder : finders.entrySet()) {
+            entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAll();
+            RecordingInspector.SQL.clear();
+            finder.getValue().run();
+            List<String> statements = new ArrayList<>(RecordingInspector.SQL);
+            assertFalse(statements.isEmpty(), finder.getKey() + " did not reach the database");
+            for (String sql : statements) {
+                String plan = genericPlan(sql);
+                assertFalse(plan.contains("Seq Scan"),
+                        finder.getKey() + " scans a whole table:\n" + sql + "\n" + plan);
+            }
+        }
+    }
+
+    private Map<String, Runnable> finders() {
+        LocalDate today = LocalDate.now();
+        PageRequest page = PageRequest.ofSize(10);
+        Map<String, Runnable> finders = new LinkedHashMap<>();
+        finders.put("BrandRepo.findByBrandTitle", () -> brandRepo.findByBrandTitle("x"));
+        finders.put("BrandRepo.existsByBrandTitle", () -> brandRepo.existsByBrandTitle("x"));
+        finders.put("CategoryRepo.findByCategoryTitle", () -> categoryRepo.findByCategoryTitle("x"));
+        finders.put("CategoryRepo.existsByCategoryTitle", () -> categoryRepo.existsByCategoryTitle("x"));
+        finders.put("RolesRepo.findByCharacterTitle", () -> rolesRepo.findByCharacterTitle("x"));
+        finders.put("RolesRepo.existsByCharacterTitle", () -> rolesRepo.existsByCharacterTitle("x"));
+        finders.put("UserRepo.findByPhoneNumber", () -> userRepo.findByPhoneNumber("x"));
+        finders.put("UserRepo.existsByPhoneNumber", () -> userRepo.existsByPhoneNumber("x"));
+        finders.put("UserRepo.existsByClientLogin", () -> userRepo.existsByClientLogin("x"));
+        finders.put("UserRepo.findByClientLogin", () -> userRepo.findByClientLogin("x"));
+        finders.put("UserRepo.findByRoleId", () -> userRepo.findByRoleId(1));
+        finders.put("UserRepo.findIdsByRoleId", () -> userRepo.findIdsByRoleId(1));
+        finders.put("UserRepo.findByPhoneNumberOrClientLogin", () -> userRepo.findByPhoneNumberOrClientLogin("x", "y"));
+        finders.put("ProductRepo.findByProductTitleContainingIgnoreCase",
+                () -> productRepo.findByProductTitleContainingIgnoreCase("phone"));
+        finders.put("ProductRepo.findByBrand_Id", () -> productRepo.findByBrand_Id(1L));
+        finders.put("ProductRepo.findByCategory_Id", () -> productRepo.findByCategory_Id(1L));
+        finders.put("ProductRepo.findByPriceRange", () -> productRepo.findByPriceRange(1, 2));
+        finders.put("ProductRepo.existsByProductTitle", () -> productRepo.existsByProductTitle("x"));
+        finders.put("ProductRepo.findPageAfter", () -> productRepo.findPageAfter(0L, page));
+        finders.put("ProductRepo.findPageByTitleAfter", () -> productRepo.findPageByTitleAfter("phone", 0L, page));
+        finders.put("ProductRepo.findPageByBrandAfter", () -> productRepo.findPageByBrandAfter(1L, 0L, page));
+        finders.put("ProductRepo.findPageByCategoryAfter", () -> productRepo.findPageByCategoryAfter(1L, 0L, page));
+        finders.put("ProductRepo.findPageByPriceRangeAfter",
+                () -> productRepo.findPageByPriceRangeAfter(1, 2, 0L, page));
+        finders.put("OrderRepo.findByUserId", () -> orderRepo.findByUserId(1L));
+        finders.put("OrderRepo.findByStatus", () -> orderRepo.findByStatus("x"));
+        finders.put("OrderRepo.findIdsByStatus", () -> orderRepo.findIdsByStatus("x"));
+        finders.put("OrderRepo.findByOrderDateBetween", () -> orderRepo.findByOrderDateBetween(today, today));
+        finders.put("PaymentRepo.findByUserId", () -> paymentRepo.findByUserId(1L));
+        finders.put("PaymentRepo.findByOrderId", () -> paymentRepo.findByOrderId(1L));
+        finders.put("PaymentRepo.findByPaymentDateBetween", () -> paymentRepo.findByPaymentDateBetween(today, today));
+        finders.put("PaymentRepo.findByPaymentMethod", () -> paymentRepo.findByPaymentMethod("x"));
+        finders.put("PaymentRepo.findIdsByPaymentMethod", () -> paymentRepo.findIdsByPaymentMethod("x"));
+        finders.put("ReviewRepo.findByUserId", () -> reviewRepo.findByUserId(1L));
+        finders.put("ReviewRepo.findByOrderId", () -> reviewRepo.findByOrderId(1L));
+        finders.put("ReviewRepo.findByMinRating", () -> reviewRepo.findByMinRating(5));
+        finders.put("ReviewRepo.existsByUserIdAndOrderId", () -> reviewRepo.existsByUserIdAndOrderId(1L, 1L));
+        finders.put("ChangeRecordRepo.findPageAfter", () -> changeRecordRepo.findPageAfter(0L, page));
+        finders.put("ReviewSearchService.search",
+                () -> reviewSearchService.search("good", null, null, null, null, 0, 10));
+        finders.put("ReviewSearchService.search with filters",
+                () -> reviewSearchService.search("good", 4, 5, today, today, 0, 10));
+        return finders;
+    }
+
+    // План без значений параметров: такой же Postgres строит для переиспользуемого prepared statement
+    private String genericPlan(String sql) throws Exception {
+        StringBuilder numbered = new StringBuilder();
+        int parameter = 0;
+        for (char c : sql.toCharArray()) {
+            if (c == '?') {
+                numbered.append('$').append(++parameter);
+            } else {
+                numbered.append(c);
+            }
+        }
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("SET enable_seqscan = off");
+            statement.execute("SET plan_cache_mode = force_generic_plan");
+            statement.execute("PREPARE finder AS " + numbered);
+            try {
+                StringBuilder plan = new StringBuilder();
+                String arguments = parameter == 0 ? "" : "(" + String.join(",", Collections.nCopies(parameter, "NULL")) + ")";
+                try (ResultSet rows = statement.executeQuery("EXPLAIN EXECUTE finder" + arguments)) {
+                    while (rows.next()) {
+                        plan.append(rows.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            } finally {
+                statement.execute("DEALLOCATE finder");
+                statement.execute("RESET enable_seqscan");
+                statement.execute("RESET plan_cache_mode");
+            }
+        }
+    }
+
+    public static class RecordingInspector implements StatementInspector {
+        static final List<String> SQL = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            SQL.add(sql);
+            return sql;
+        }
+    }
+}
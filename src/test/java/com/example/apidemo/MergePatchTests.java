@@ -0,0 +1,100 @@
+package com.example.apidemo;
+
+import com.example.apidemo.dto.ProductDto;
+import com.example.apidemo.dto.UserDto;
+import com.example.apidemo.repository.BrandRepo;
+import com.example.apidemo.repository.CategoryRepo;
+import com.example.apidemo.repository.ProductRepo;
+import com.example.apidemo.repository.RolesRepo;
+import com.example.apidemo.repository.UserRepo;
+import com.example.apidemo.service.MergePatchService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MergePatchTests {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ProductRepo productRepo;
+    @Autowired private BrandRepo brandRepo;
+    @Autowired private CategoryRepo categoryRepo;
+    @Autowired private RolesRepo rolesRepo;
+    @Autowired private UserRepo userRepo;
+
+    @Test
+    void patchUpdatesOnlyGivenFieldsAndChecksVersion() throws Exception {
+        ProductDto product = TestFixtures.saveProduct(brandRepo, categoryRepo, productRepo, "Patch test", 7);
+        try {
+            // Загружаем в L2, чтобы убедиться, что после патча не отдаётся старое значение
+            mockMvc.perform(get("/api/products/{id}", product.getId())).andExpect(status().isOk());
+
+            mockMvc.perform(patch("/api/products/{id}", product.getId())
+                            .contentType(MergePatchService.MEDIA_TYPE)
+                            .content("{\"price\": 150, \"version\": 0}"))
+                    .andExpect(status().isNoContent())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+
+            mockMvc.perform(get("/api/products/{id}", product.getId()))
+                    .andExpect(jsonPath("$.price").value(150))
+                    .andExpect(jsonPath("$.quantity").value(7))
+                    .andExpect(jsonPath("$.productTitle").value(product.getProductTitle()))
+                    .andExpect(jsonPath("$.version").value(1));
+
+            // Тот же патч от устаревшей версии
+            mockMvc.perform(patch("/api/products/{id}", product.getId())
+                            .contentType(MergePatchService.MEDIA_TYPE)
+                            .header(HttpHeaders.IF_MATCH, "\"0\"")
+                            .content("{\"quantity\": 1}"))
+                    .andExpect(status().isConflict())
+                    .andExpect(jsonPath("$.message").value("Version 0 is stale, current version is 1"));
+
+            mockMvc.perform(patch("/api/products/{id}", product.getId())
+                            .contentType(MergePatchService.MEDIA_TYPE)
+                            .content("{\"price\": -5, \"version\": 1}"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(patch("/api/products/{id}", product.getId())
+                            .contentType(MergePatchService.MEDIA_TYPE)
+                            .content("{\"brand\": {\"id\": -1}, \"version\": 1}"))
+                    .andExpect(status().isNotFound());
+            mockMvc.perform(patch("/api/products/{id}", -1)
+                            .contentType(MergePatchService.MEDIA_TYPE)
+                            .content("{\"price\": 5, \"version\": 0}"))
+                    .andExpect(status().isNotFound());
+
+            assertEquals(1, productRepo.findById(product.getId()).orElseThrow().getVersion());
+        } finally {
+            TestFixtures.deleteProduct(brandRepo, categoryRepo, productRepo, product);
+        }
+    }
+
+    @Test
+    void patchWithOnlyServerManagedFieldsIsRejected() throws Exception {
+        UserDto user = TestFixtures.saveUser(rolesRepo, userRepo, "Patch");
+        try {
+            mockMvc.perform(patch("/api/users/{id}", user.getId())
+                            .contentType(MergePatchService.MEDIA_TYPE)
+                            .content("{\"key\": 42, \"version\": 0}"))
+                    .andExpect(status().isBadRequest());
+            // Версия не сдвинулась: патч от версии 0 всё ещё применяется
+            mockMvc.perform(patch("/api/users/{id}", user.getId())
+                            .contentType(MergePatchService.MEDIA_TYPE)
+                            .content("{\"firstName\": \"Patched\", \"version\": 0}"))
+                    .andExpect(status().isNoContent())
+                    .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        } finally {
+            TestFixtures.deleteUser(rolesRepo, userRepo, user);
+        }
+    }
+}
\ No newline at end of file
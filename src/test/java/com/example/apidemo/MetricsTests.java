@@ -0,0 +1,36 @@
+package com.example.apidemo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class MetricsTests {
+
+    @Autowired private MockMvc mockMvc;
+
+    @Test
+    void scrapeExposesEndpointAndRepositoryHistograms() throws Exception {
+        mockMvc.perform(get("/api/orders/{id}", -1)).andExpect(status().isNotFound());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString(
+                        "http_server_requests_seconds_bucket{handler=\"OrderController.getOrderById\","
+                                + "outcome=\"CLIENT_ERROR\",size=\"none\",le=\"0.001\"}")))
+                .andExpect(content().string(containsString(
+                        "repository_invocations_seconds_bucket{method=\"findById\",outcome=\"SUCCESS\","
+                                + "repository=\"OrderRepo\",size=\"0\"")))
+                .andExpect(content().string(containsString("single_flight_loads_total")));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.example.apidemo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MultiGetTests {
+
+    @Autowired private MockMvc mockMvc;
+
+    @Test
+    void rejectsNullIds() throws Exception {
+        mockMvc.perform(get("/api/brands").param("ids", "-1,,-2"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/brands/by-ids")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[-1, null]"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/brands").param("ids", "-1,-2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.missingIds[1]").value(-2));
+    }
+}
\ No newline at end of file
@@ -0,0 +1,199 @@
+package com.example.apidemo;
+
+import com.example.apidemo.cache.QueryResultCache;
+import com.example.apidemo.dto.OrderDto;
+import com.example.apidemo.dto.PaymentDto;
+import com.example.apidemo.dto.UserDto;
+import com.example.apidemo.repository.OrderRepo;
+import com.example.apidemo.repository.PaymentRepo;
+import com.example.apidemo.repository.RolesRepo;
+import com.example.apidemo.repository.UserRepo;
+import com.example.apidemo.service.MergePatchService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultMatcher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Без шины: уведомления о своих же изменениях другие тестовые контексты применили бы к общему кешу
+@SpringBootTest(properties = "app.change-bus.enabled=false")
+@AutoConfigureMockMvc
+class QueryResultCacheTests {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private QueryResultCache queryCache;
+    @Autowired private EntityManager entityManager;
+    @Autowired private RolesRepo rolesRepo;
+    @Autowired private UserRepo userRepo;
+    @Autowired private OrderRepo orderRepo;
+    @Autowired private PaymentRepo paymentRepo;
+    @Autowired private PlatformTransactionManager transactionManager;
+
+    @Test
+    void orderStatusChangeUpdatesBothStatusLists() throws Exception {
+        // Статусы, которых нет у других заказов базы
+        String first = "A-" + TestFixtures.randomHex(12);
+        String second = "B-" + TestFixtures.randomHex(12);
+        UserDto user = TestFixtures.saveUser(rolesRepo, userRepo, "Query");
+        OrderDto order = orderRepo.save(new OrderDto(first, user.getId()));
+        try {
+            // Оба списка попадают в кэш до изменений
+            expectOrders(first, order.getId());
+            expectOrders(second);
+
+            ObjectNode body = (ObjectNode) objectMapper.readTree(mockMvc.perform(get("/api/orders/{id}", order.getId()))
+                    .andReturn().getResponse().getContentAsString());
+            body.put("status", second);
+            mockMvc.perform(put("/api/orders/{id}", order.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body.toString()))
+                    .andExpect(status().isOk());
+            expectOrders(first);
+            expectOrders(second, order.getId());
+
+            mockMvc.perform(patch("/api/orders/{id}", order.getId())
+                            .contentType(MergePatchService.MEDIA_TYPE)
+                            .content("{\"status\": \"" + first + "\", \"version\": " + (body.get("version").asInt() + 1)
+                                    + "}"))
+                    .andExpect(status().isNoContent());
+            expectOrders(first, order.getId());
+            expectOrders(second);
+
+            mockMvc.perform(delete("/api/orders/{id}", order.getId())).andExpect(status().isNoContent());
+            order = null;
+            expectOrders(first);
+        } finally {
+            if (order != null) {
+                orderRepo.deleteById(order.getId());
+            }
+            TestFixtures.deleteUser(rolesRepo, userRepo, user);
+        }
+    }
+
+    @Test
+    void paymentMethodChangeUpdatesBothMethodLists() throws Exception {
+        // Способ оплаты ограничен 10 символами
+        String first = "A" + TestFixtures.randomHex(8);
+        String second = "B" + TestFixtures.randomHex(8);
+        UserDto user = TestFixtures.saveUser(rolesRepo, userRepo, "Query");
+        OrderDto order = orderRepo.save(new OrderDto("NEW", user.getId()));
+        PaymentDto payment = paymentRepo.save(new PaymentDto(100, first, user.getId(), order.getId()));
+        try {
+            expectPayments(first, payment.getId());
+            expectPayments(second);
+
+            ObjectNode body = (ObjectNode) objectMapper.readTree(mockMvc.perform(get("/api/payments/{id}",
+                    payment.getId())).andReturn().getResponse().getContentAsString());
+            body.put("paymentMethod", second);
+            mockMvc.perform(put("/api/payments/{id}", payment.getId())
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(body.toString()))
+                    .andExpect(status().isOk());
+            expectPayments(first);
+            expectPayments(second, payment.getId());
+
+            mockMvc.perform(delete("/api/payments/{id}", payment.getId())).andExpect(status().isNoContent());
+            payment = null;
+            expectPayments(second);
+        } finally {
+            if (payment != null) {
+                paymentRepo.deleteById(payment.getId());
+            }
+            orderRepo.deleteById(order.getId());
+            TestFixtures.deleteUser(rolesRepo, userRepo, user);
+        }
+    }
+
+    @Test
+    void resultReadBeforeInvalidationIsNotCached() {
+        String argument = TestFixtures.randomHex(12);
+        AtomicInteger loads = new AtomicInteger();
+        // Запись закончилась, пока шло чтение: прочитанный до неё результат отдаётся, но не кэшируется
+        queryCache.find(OrderDto.class, "race", argument, () -> {
+            loads.incrementAndGet();
+            queryCache.invalidate("race", argument);
+            return List.of(-1L);
+        });
+        queryCache.find(OrderDto.class, "race", argument, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+        queryCache.find(OrderDto.class, "race", argument, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void leastRecentlyUsedEntryIsEvictedOverBudget() {
+        // Отдельный экземпляр с бюджетом на две записи по одному id (id + 1 слот на запись)
+        QueryResultCache cache = new QueryResultCache(4, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "entityManager", entityManager);
+        AtomicInteger loads = new AtomicInteger();
+
+        load(cache, "a", loads);
+        load(cache, "b", loads);
+        load(cache, "a", loads);
+        load(cache, "c", loads);
+        assertEquals(3, loads.get());
+
+        // Вытеснена b: к ней дольше всех не обращались
+        load(cache, "a", loads);
+        load(cache, "c", loads);
+        assertEquals(3, loads.get());
+        load(cache, "b", loads);
+        assertEquals(4, loads.get());
+    }
+
+    // Экземпляр не бин, транзакцию для multiLoad открываем сами
+    private void load(QueryResultCache cache, String argument, AtomicInteger loads) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(transaction ->
+                cache.find(OrderDto.class, "lru", argument, () -> {
+                    loads.incrementAndGet();
+                    return List.of(-1L);
+                }));
+    }
+
+    private void expectOrders(String status, Long... ids) throws Exception {
+        mockMvc.perform(get("/api/orders/by-status/{status}", status))
+                .andExpect(status().isOk())
+                .andExpect(ids(ids));
+    }
+
+    private void expectPayments(String method, Long... ids) throws Exception {
+        mockMvc.perform(get("/api/payments/by-method/{method}", method))
+                .andExpect(status().isOk())
+                .andExpect(ids(ids));
+    }
+
+    // Небольшие id JsonPath читает как Integer
+    private static ResultMatcher ids(Long... ids) {
+        return ids.length == 0 ? jsonPath("$", empty())
+                : jsonPath("$[*].id", contains(Arrays.stream(ids).map(Long::intValue).toArray()));
+    }
+}
\ No newline at end of file
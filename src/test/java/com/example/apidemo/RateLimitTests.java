@@ -0,0 +1,87 @@
+package com.example.apidemo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.RequestPostProcessor;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.rate-limit.enabled=true",
+        "app.rate-limit.expensive.per-second=0.1",
+        "app.rate-limit.expensive.burst=2",
+        "app.rate-limit.api-keys=greedy,polite,lister,first,second,third",
+        "app.rate-limit.max-keys-per-address=2"
+})
+@AutoConfigureMockMvc
+class RateLimitTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void expensiveListsHaveTheirOwnBudgetPerClient() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/payments").with(from("10.0.0.1")).header("X-Api-Key", "greedy"))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/api/payments").with(from("10.0.0.1")).header("X-Api-Key", "greedy"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string("Retry-After", "10"));
+
+        // Дешёвые запросы того же клиента и запросы других клиентов не страдают
+        mockMvc.perform(get("/api/payments").param("ids", "1").with(from("10.0.0.1")).header("X-Api-Key", "greedy"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/payments").with(from("10.0.0.1")).header("X-Api-Key", "polite"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void snapshotListsAndChangeFeedUseStandardBudget() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            for (String path : new String[]{"/api/brands", "/api/categories", "/api/roles", "/api/changes"}) {
+                mockMvc.perform(get(path).with(from("10.0.0.2")).header("X-Api-Key", "lister"))
+                        .andExpect(status().isOk());
+            }
+        }
+    }
+
+    @Test
+    void unknownKeysShareTheAddressBudget() throws Exception {
+        // Новый ключ на каждый запрос не даёт нового ведра
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/payments").with(from("10.0.0.3")).header("X-Api-Key", "rotated-" + i))
+                    .andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/api/payments").with(from("10.0.0.3")).header("X-Api-Key", "rotated-2"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    @Test
+    void keysBeyondTheAddressCapUseTheAddressBudget() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/payments").with(from("10.0.0.4"))).andExpect(status().isOk());
+        }
+        mockMvc.perform(get("/api/payments").with(from("10.0.0.4"))).andExpect(status().isTooManyRequests());
+
+        // Первые два ключа с адреса получают свои вёдра, третий расходует исчерпанный бюджет адреса
+        mockMvc.perform(get("/api/payments").with(from("10.0.0.4")).header("X-Api-Key", "first"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/payments").with(from("10.0.0.4")).header("X-Api-Key", "second"))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/payments").with(from("10.0.0.4")).header("X-Api-Key", "third"))
+                .andExpect(status().isTooManyRequests());
+    }
+
+    private static RequestPostProcessor from(String address) {
+        return request -> {
+            request.setRemoteAddr(address);
+            return request;
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.apidemo;
+
+import com.example.apidemo.db.ReadYourWritesFilter;
+import com.example.apidemo.repository.BrandRepo;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Маршрутизация чтений: «реплика» — второй пул к той же базе с нулевым отставанием.
+ * Узел, обслуживший read-only транзакцию, видно по счётчику db.routed.reads.
+ */
+@SpringBootTest(properties = {
+        "app.replicas.enabled=true",
+        "app.replicas.urls=${spring.datasource.url}",
+        "app.replicas.lag-query=SELECT 0",
+        "app.change-bus.enabled=false"})
+@AutoConfigureMockMvc
+class ReplicaRoutingTests {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private MeterRegistry registry;
+    @Autowired private ObjectMapper objectMapper;
+    @Autowired private BrandRepo brandRepo;
+
+    @Test
+    void readOnlyTransactionsGoToReplicaUntilClientWrites() throws Exception {
+        double replicaReads = reads("replica-0");
+        double primaryReads = reads("primary");
+        search(null);
+        assertTrue(reads("replica-0") > replicaReads);
+        assertEquals(primaryReads, reads("primary"));
+
+        MockHttpServletResponse response = mockMvc.perform(post("/api/brands")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"brandTitle\": \"" + TestFixtures.unique("Replica") + "\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        long brandId = objectMapper.readTree(response.getContentAsString()).get("id").asLong();
+        String lastWrite = response.getHeader(ReadYourWritesFilter.LAST_WRITE_HEADER);
+        Cookie cookie = response.getCookie(ReadYourWritesFilter.LAST_WRITE_COOKIE);
+        try {
+            assertNotNull(lastWrite);
+            assertNotNull(cookie);
+            assertEquals(lastWrite, cookie.getValue());
+
+            // Метку последней записи проверит любой узел: с ней клиент читает с primary, без неё — с реплики
+            replicaReads = reads("replica-0");
+            primaryReads = reads("primary");
+            search(lastWrite);
+            assertEquals(replicaReads, reads("replica-0"));
+            assertTrue(reads("primary") > primaryReads);
+
+            primaryReads = reads("primary");
+            mockMvc.perform(get("/api/reviews/search").param("q", "replica" + TestFixtures.randomHex(12))
+                            .cookie(cookie))
+                    .andExpect(status().isOk());
+            assertTrue(reads("primary") > primaryReads);
+
+            primaryReads = reads("primary");
+            search(null);
+            assertTrue(reads("replica-0") > replicaReads);
+            assertEquals(primaryReads, reads("primary"));
+
+            // Устаревшая метка на чтение уже не влияет
+            replicaReads = reads("replica-0");
+            search(Long.toString(System.currentTimeMillis() - 60_000));
+            assertTrue(reads("replica-0") > replicaReads);
+        } finally {
+            brandRepo.deleteById(brandId);
+        }
+    }
+
+    @Test
+    void readOnlyPostsAreReads() throws Exception {
+        double replicaReads = reads("replica-0");
+        MockHttpServletResponse response = mockMvc.perform(post("/api/brands/by-ids")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[-1]"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse();
+        assertNull(response.getHeader(ReadYourWritesFilter.LAST_WRITE_HEADER));
+        assertTrue(reads("replica-0") > replicaReads);
+    }
+
+    @Test
+    void gateCoversPrimaryAndReplicaPools() {
+        assertEquals(20, registry.get("db.gate.permits").gauge().value());
+    }
+
+    private void search(String lastWrite) throws Exception {
+        MockHttpServletRequestBuilder request = get("/api/reviews/search")
+                .param("q", "replica" + TestFixtures.randomHex(12));
+        if (lastWrite != null) {
+            request.header(ReadYourWritesFilter.LAST_WRITE_HEADER, lastWrite);
+        }
+        mockMvc.perform(request).andExpect(status().isOk());
+    }
+
+    private double reads(String target) {
+        return registry.get("db.routed.reads").tag("target", target).functionCounter().count();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,120 @@
+package com.example.apidemo;
+
+import com.example.apidemo.dto.OrderDto;
+import com.example.apidemo.dto.ReviewDto;
+import com.example.apidemo.dto.UserDto;
+import com.example.apidemo.repository.OrderRepo;
+import com.example.apidemo.repository.ReviewRepo;
+import com.example.apidemo.repository.RolesRepo;
+import com.example.apidemo.repository.UserRepo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Маленькая выборка кандидатов, чтобы проверить усечение на нескольких отзывах
+@SpringBootTest(properties = "app.review-search.max-candidates=2")
+@AutoConfigureMockMvc
+class ReviewSearchTests {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private RolesRepo rolesRepo;
+    @Autowired private UserRepo userRepo;
+    @Autowired private OrderRepo orderRepo;
+    @Autowired private ReviewRepo reviewRepo;
+
+    @Test
+    void findsReviewsByWordsRankedAndFiltered() throws Exception {
+        // Слово, которого нет в других отзывах базы
+        String word = "zorbix" + TestFixtures.randomHex(12);
+        UserDto user = TestFixtures.saveUser(rolesRepo, userRepo, "Search");
+
+        List<OrderDto> orders = new ArrayList<>();
+        List<ReviewDto> reviews = new ArrayList<>();
+        try {
+            ReviewDto twice = review(user, orders, reviews, word + " great, really " + word, 5, LocalDate.now());
+            ReviewDto once = review(user, orders, reviews, "Fast delivery and " + word.toUpperCase(), 2,
+                    LocalDate.of(2020, 1, 1));
+            review(user, orders, reviews, "Nothing to see here", 5, LocalDate.now());
+
+            // Регистр не важен, частое упоминание поднимает отзыв выше
+            mockMvc.perform(get("/api/reviews/search").param("q", word))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.reviews", hasSize(2)))
+                    .andExpect(jsonPath("$.reviews[0].id").value(twice.getId()))
+                    .andExpect(jsonPath("$.reviews[1].id").value(once.getId()))
+                    .andExpect(jsonPath("$.hasMore").value(false))
+                    .andExpect(jsonPath("$.truncated").value(false));
+
+            mockMvc.perform(get("/api/reviews/search").param("q", word).param("maxRating", "3")
+                            .param("startDate", "2019-12-31").param("endDate", "2020-01-02"))
+                    .andExpect(jsonPath("$.reviews", hasSize(1)))
+                    .andExpect(jsonPath("$.reviews[0].id").value(once.getId()));
+            mockMvc.perform(get("/api/reviews/search").param("q", word + " -delivery"))
+                    .andExpect(jsonPath("$.reviews", hasSize(1)))
+                    .andExpect(jsonPath("$.reviews[0].id").value(twice.getId()));
+            mockMvc.perform(get("/api/reviews/search").param("q", word).param("size", "1"))
+                    .andExpect(jsonPath("$.reviews", hasSize(1)))
+                    .andExpect(jsonPath("$.hasMore").value(true));
+
+            mockMvc.perform(get("/api/reviews/search").param("q", " "))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/reviews/search").param("q", word).param("minRating", "6"))
+                    .andExpect(status().isBadRequest());
+            mockMvc.perform(get("/api/reviews/search").param("q", word).param("startDate", "01.01.2020"))
+                    .andExpect(status().isBadRequest());
+        } finally {
+            reviewRepo.deleteAllById(reviews.stream().map(ReviewDto::getId).toList());
+            orderRepo.deleteAllById(orders.stream().map(OrderDto::getId).toList());
+            TestFixtures.deleteUser(rolesRepo, userRepo, user);
+        }
+    }
+
+    @Test
+    void ranksNewestCandidatesAndReportsTruncation() throws Exception {
+        String word = "quolt" + TestFixtures.randomHex(12);
+        UserDto user = TestFixtures.saveUser(rolesRepo, userRepo, "Search");
+
+        List<OrderDto> orders = new ArrayList<>();
+        List<ReviewDto> reviews = new ArrayList<>();
+        try {
+            // Самое релевантное совпадение — самое старое и в выборку из двух новейших не входит
+            review(user, orders, reviews, word + " " + word + " " + word, 5, LocalDate.now());
+            ReviewDto middle = review(user, orders, reviews, word + " fine", 4, LocalDate.now());
+            ReviewDto newest = review(user, orders, reviews, word + " " + word, 3, LocalDate.now());
+
+            mockMvc.perform(get("/api/reviews/search").param("q", word))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.reviews", hasSize(2)))
+                    .andExpect(jsonPath("$.reviews[0].id").value(newest.getId()))
+                    .andExpect(jsonPath("$.reviews[1].id").value(middle.getId()))
+                    .andExpect(jsonPath("$.hasMore").value(false))
+                    .andExpect(jsonPath("$.truncated").value(true));
+        } finally {
+            reviewRepo.deleteAllById(reviews.stream().map(ReviewDto::getId).toList());
+            orderRepo.deleteAllById(orders.stream().map(OrderDto::getId).toList());
+            TestFixtures.deleteUser(rolesRepo, userRepo, user);
+        }
+    }
+
+    private ReviewDto review(UserDto user, List<OrderDto> orders, List<ReviewDto> reviews,
+                             String title, int rating, LocalDate date) {
+        OrderDto order = orderRepo.save(new OrderDto("NEW", user.getId()));
+        orders.add(order);
+        ReviewDto review = new ReviewDto(title, rating, user.getId(), order.getId());
+        review.setReviewDate(date);
+        review = reviewRepo.save(review);
+        reviews.add(review);
+        return review;
+    }
+}
\ No newline at end of file
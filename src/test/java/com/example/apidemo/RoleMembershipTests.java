@@ -0,0 +1,27 @@
+package com.example.apidemo;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RoleMembershipTests {
+
+    @Autowired private MockMvc mockMvc;
+
+    @Test
+    void rejectsBadPagesAndUnknownRoles() throws Exception {
+        mockMvc.perform(get("/api/roles/{id}/users", 1).param("size", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/roles/{id}/users", -1))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/roles/{id}/users/{userId}", -1, 1))
+                .andExpect(status().isNotFound());
+    }
+}
\ No newline at end of file
@@ -0,0 +1,63 @@
+package com.example.apidemo;
+
+import com.example.apidemo.dto.ProductDto;
+import com.example.apidemo.repository.BrandRepo;
+import com.example.apidemo.repository.CategoryRepo;
+import com.example.apidemo.repository.ProductRepo;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Без шины: уведомления о своих же изменениях другие тестовые контексты применили бы к общему кешу
+@SpringBootTest(properties = "app.change-bus.enabled=false")
+@AutoConfigureMockMvc
+class SecondLevelCacheTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductRepo productRepo;
+
+    @Autowired
+    private BrandRepo brandRepo;
+
+    @Autowired
+    private CategoryRepo categoryRepo;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void repeatedGetByIdDoesNotHitDatabase() throws Exception {
+        ProductDto product = TestFixtures.saveProduct(brandRepo, categoryRepo, productRepo, "L2 test", 1);
+        try {
+            // Первый запрос может сходить в БД и положить сущности в кэш
+            mockMvc.perform(get("/api/products/{id}", product.getId())).andExpect(status().isOk());
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            statistics.clear();
+
+            for (int i = 0; i < 3; i++) {
+                mockMvc.perform(get("/api/products/{id}", product.getId()))
+                        .andExpect(status().isOk())
+                        .andExpect(jsonPath("$.brand.id").value(product.getBrand().getId()));
+            }
+
+            // Товар, бренд и категория берутся из кэша при каждом запросе
+            assertEquals(0, statistics.getPrepareStatementCount());
+            assertEquals(9, statistics.getSecondLevelCacheHitCount());
+        } finally {
+            TestFixtures.deleteProduct(brandRepo, categoryRepo, productRepo, product);
+        }
+    }
+}
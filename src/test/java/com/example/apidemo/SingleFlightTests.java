@@ -0,0 +1,97 @@
+package com.example.apidemo;
+
+import com.example.apidemo.cache.EntityChange;
+import com.example.apidemo.cache.SingleFlightLoader;
+import com.example.apidemo.dto.ProductDto;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SingleFlightTests {
+
+    @Test
+    void concurrentReadsOfOneKeyShareOneLoad() throws Exception {
+        SingleFlightLoader singleFlight = new SingleFlightLoader(0, new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        ProductDto product = new ProductDto();
+        int clients = 16;
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients);
+        try {
+            List<Future<Optional<ProductDto>>> results = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                results.add(executor.submit(() -> singleFlight.findById(ProductDto.class, 7L, id -> {
+                    loads.incrementAndGet();
+                    await(release);
+                    return Optional.of(product);
+                })));
+            }
+            // Даём всем запросам прийти, пока первая загрузка ещё идёт
+            Thread.sleep(300);
+            release.countDown();
+            for (Future<Optional<ProductDto>> result : results) {
+                assertSame(product, result.get(5, TimeUnit.SECONDS).orElseThrow());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(1, loads.get());
+
+        // Без удержания следующий запрос после загрузки идёт в БД заново
+        singleFlight.findById(ProductDto.class, 7L, counting(loads));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void heldResultIsForgottenAfterWrite() {
+        SingleFlightLoader singleFlight = new SingleFlightLoader(60_000, new SimpleMeterRegistry());
+        AtomicInteger loads = new AtomicInteger();
+        for (int i = 0; i < 3; i++) {
+            singleFlight.findById(ProductDto.class, 7L, counting(loads));
+        }
+        assertEquals(1, loads.get());
+
+        singleFlight.afterCommit(List.of(new EntityChange("product", 7L, 1, EntityChange.Operation.UPDATE)));
+        singleFlight.findById(ProductDto.class, 7L, counting(loads));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void failedLoadIsNotShared() {
+        SingleFlightLoader singleFlight = new SingleFlightLoader(60_000, new SimpleMeterRegistry());
+        assertThrows(IllegalStateException.class, () -> singleFlight.findById(ProductDto.class, 7L, id -> {
+            throw new IllegalStateException("database is down");
+        }));
+        assertEquals(Optional.empty(), singleFlight.findById(ProductDto.class, 7L, id -> Optional.empty()));
+    }
+
+    private static Function<Long, Optional<ProductDto>> counting(AtomicInteger loads) {
+        return id -> {
+            loads.incrementAndGet();
+            return Optional.of(new ProductDto());
+        };
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
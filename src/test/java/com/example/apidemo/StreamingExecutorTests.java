@@ -0,0 +1,59 @@
+package com.example.apidemo;
+
+import com.example.apidemo.exception.ServiceUnavailableException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerAdapter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// Пул потоковых ответов из одного потока без очереди: занятый поток сразу даёт 503
+@SpringBootTest(properties = {
+        "app.products.stream.threads=1",
+        "app.products.stream.queue-capacity=0"})
+@AutoConfigureMockMvc
+class StreamingExecutorTests {
+
+    @Autowired private MockMvc mockMvc;
+    @Autowired private RequestMappingHandlerAdapter handlerAdapter;
+
+    @Test
+    void streamsAreRejectedWhenThePoolIsFull() throws Exception {
+        AsyncTaskExecutor executor = (AsyncTaskExecutor) ReflectionTestUtils.getField(handlerAdapter, "taskExecutor");
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> busy = executor.submit(() -> {
+            release.await();
+            return null;
+        });
+        try {
+            MvcResult rejected = mockMvc.perform(get("/api/products/stream/by-price")
+                            .param("minPrice", "1").param("maxPrice", "2"))
+                    .andReturn();
+            // Отказ уходит в обычную обработку ошибок (@ResponseStatus 503) повторной диспетчеризацией,
+            // до которой MockMvc не доходит, поэтому проверяем сам результат асинхронной обработки
+            assertInstanceOf(ServiceUnavailableException.class,
+                    WebAsyncUtils.getAsyncManager(rejected.getRequest()).getConcurrentResult());
+        } finally {
+            release.countDown();
+            busy.get();
+        }
+
+        MvcResult streamed = mockMvc.perform(get("/api/products/stream/by-price")
+                        .param("minPrice", "1").param("maxPrice", "2"))
+                .andReturn();
+        mockMvc.perform(asyncDispatch(streamed)).andExpect(status().isOk());
+    }
+}
\ No newline at end of file
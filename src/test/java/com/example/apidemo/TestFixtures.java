@@ -0,0 +1,66 @@
+package com.example.apidemo;
+
+import com.example.apidemo.dto.BrandDto;
+import com.example.apidemo.dto.CategoryDto;
+import com.example.apidemo.dto.ProductDto;
+import com.example.apidemo.dto.RolesDto;
+import com.example.apidemo.dto.UserDto;
+import com.example.apidemo.repository.BrandRepo;
+import com.example.apidemo.repository.CategoryRepo;
+import com.example.apidemo.repository.ProductRepo;
+import com.example.apidemo.repository.RolesRepo;
+import com.example.apidemo.repository.UserRepo;
+
+import java.util.UUID;
+
+/**
+ * Общие тестовые данные. Тесты пишут в общую базу, поэтому имена и уникальные поля
+ * получают суффикс из случайного UUID: параллельные и повторные прогоны не сталкиваются.
+ */
+final class TestFixtures {
+
+    private TestFixtures() {
+    }
+
+    // 12 hex-символов UUID: с префиксом до 17 символов укладывается в 30 символов названий
+    static String unique(String prefix) {
+        return prefix + " " + randomHex(12);
+    }
+
+    static ProductDto saveProduct(BrandRepo brandRepo, CategoryRepo categoryRepo, ProductRepo productRepo,
+                                  String prefix, int quantity) {
+        BrandDto brand = brandRepo.save(new BrandDto(unique(prefix + " b")));
+        CategoryDto category = categoryRepo.save(new CategoryDto(unique(prefix + " c")));
+        return productRepo.save(new ProductDto(unique(prefix), 100, quantity, brand, category));
+    }
+
+    static void deleteProduct(BrandRepo brandRepo, CategoryRepo categoryRepo, ProductRepo productRepo,
+                              ProductDto product) {
+        productRepo.deleteById(product.getId());
+        brandRepo.deleteById(product.getBrand().getId());
+        categoryRepo.deleteById(product.getCategory().getId());
+    }
+
+    // Пользователь со своей ролью; название роли ограничено 13 символами
+    static UserDto saveUser(RolesRepo rolesRepo, UserRepo userRepo, String firstName) {
+        RolesDto role = rolesRepo.save(new RolesDto("R" + randomHex(12)));
+        String suffix = randomHex(12);
+        UserDto user = new UserDto();
+        user.setFirstName(firstName);
+        user.setSurName("Test");
+        user.setPhoneNumber(String.format("+7%012d", Long.parseLong(suffix, 16) % 1_000_000_000_000L));
+        user.setClientLogin("test-" + suffix);
+        user.setClientPassword("secret");
+        user.setRoleId(role.getId().intValue());
+        return userRepo.save(user);
+    }
+
+    static void deleteUser(RolesRepo rolesRepo, UserRepo userRepo, UserDto user) {
+        userRepo.deleteById(user.getId());
+        rolesRepo.deleteById(user.getRoleId().longValue());
+    }
+
+    static String randomHex(int length) {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, length);
+    }
+}
\ No newline at end of file